@@ -0,0 +1,90 @@
+package cc.whohow.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 文件区域输入流，按位置读取FileChannel，多个流可共享同一FileChannel
+ */
+public class FileRegionInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long begin; // 区域起始位置
+    private final long end; // 区域结束位置（不含）
+    private long position; // 当前位置
+    private long mark; // 标记位置
+
+    public FileRegionInputStream(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.begin = position;
+        this.end = position + length;
+        this.position = position;
+        this.mark = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = (int) Math.min(len, end - position);
+        if (n <= 0) {
+            return -1;
+        }
+        int r = channel.read(ByteBuffer.wrap(b, off, n), position);
+        if (r < 0) {
+            return -1;
+        }
+        position += r;
+        return r;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        position = mark;
+    }
+
+    /**
+     * 区域长度
+     */
+    public long length() {
+        return end - begin;
+    }
+
+    /**
+     * 不关闭共享的FileChannel
+     */
+    @Override
+    public void close() throws IOException {
+        // do nothing
+    }
+}
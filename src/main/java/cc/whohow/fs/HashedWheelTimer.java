@@ -0,0 +1,245 @@
+package cc.whohow.fs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 时间轮定时器。时钟线程只负责将到期任务交给执行线程池，任务本身在执行线程池中运行；
+ * 适用于大量精度要求不高（精度为一个tick）的定时任务。记录任务实际开始执行相对到期时间的延迟。
+ */
+public class HashedWheelTimer implements AutoCloseable {
+    private static final int INIT = 0;
+    private static final int STARTED = 1;
+    private static final int CLOSED = 2;
+
+    private final long tickNanos; // tick时长
+    private final List<Timeout>[] wheel; // 时间轮
+    private final int mask;
+    private final Executor executor; // 执行线程池
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>(); // 待加入时间轮的任务
+    private final AtomicInteger state = new AtomicInteger(INIT);
+    private final Thread worker;
+    private volatile long startTime;
+    private final CountDownLatch started = new CountDownLatch(1); // startTime已设置
+    private long tick; // 当前tick，仅时钟线程访问
+
+    private final LongAdder executedCount = new LongAdder(); // 已执行任务数
+    private final LongAdder totalLagNanos = new LongAdder(); // 累计延迟
+    private final AtomicLong maxLagNanos = new AtomicLong(); // 最大延迟
+
+    /**
+     * @param tickDuration tick时长
+     * @param wheelSize    时间轮槽数，取整为2的幂
+     * @param executor     执行线程池
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.worker = new Thread(this::work, "HashedWheelTimer");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * 延迟执行任务
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        pendingTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    private void start() {
+        int s = state.get();
+        if (s == INIT) {
+            if (state.compareAndSet(INIT, STARTED)) {
+                startTime = System.nanoTime();
+                started.countDown();
+                worker.start();
+            }
+        } else if (s == CLOSED) {
+            throw new IllegalStateException("closed");
+        }
+        // 等待并发启动的线程设置startTime
+        boolean interrupted = false;
+        while (started.getCount() > 0) {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 已执行任务数
+     */
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    /**
+     * 平均延迟（毫秒）
+     */
+    public double getAverageLag() {
+        long count = executedCount.sum();
+        return count == 0 ? 0 : totalLagNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * 最大延迟（毫秒）
+     */
+    public long getMaxLag() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+    }
+
+    /**
+     * 等待加入时间轮的任务数
+     */
+    public int getPendingCount() {
+        return pendingTimeouts.size();
+    }
+
+    @Override
+    public void close() {
+        if (state.getAndSet(CLOSED) == STARTED) {
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (state.get() == STARTED) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            transferPendingTimeouts();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * 将新任务放入对应槽，已到期的任务放入当前槽
+     */
+    private void transferPendingTimeouts() {
+        for (Timeout timeout = pendingTimeouts.poll(); timeout != null; timeout = pendingTimeouts.poll()) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long ticks = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long deadline) {
+        int n = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                timeout.expire();
+            } else {
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                bucket.set(n++, timeout);
+            }
+        }
+        bucket.subList(n, bucket.size()).clear();
+    }
+
+    /**
+     * 定时任务
+     */
+    public class Timeout implements Runnable {
+        private static final int WAITING = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Runnable task;
+        private final long deadline; // 到期时间（纳秒）
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long remainingRounds; // 剩余圈数，仅时钟线程访问
+        private volatile long lagNanos = -1; // 实际开始执行相对到期时间的延迟
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消，已开始执行的任务不能取消
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * 实际开始执行相对到期时间的延迟（毫秒），未执行时为-1
+         */
+        public long getLag() {
+            long lag = lagNanos;
+            return lag < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(lag);
+        }
+
+        private void expire() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                state.compareAndSet(WAITING, CANCELLED);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(WAITING, RUNNING)) {
+                return;
+            }
+            long lag = Math.max(0, System.nanoTime() - deadline);
+            lagNanos = lag;
+            executedCount.increment();
+            totalLagNanos.add(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+            task.run();
+        }
+    }
+}
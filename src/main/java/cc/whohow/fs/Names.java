@@ -1,16 +1,25 @@
 package cc.whohow.fs;
 
-import java.util.Arrays;
+import java.util.AbstractList;
+import java.util.List;
 import java.util.UUID;
 
 public class Names {
+    /**
+     * 路径名回调，names.subSequence(begin, end)为路径名，不创建子字符串
+     */
+    @FunctionalInterface
+    public interface NameConsumer {
+        void accept(String names, int begin, int end);
+    }
+
     /**
      * 路径名数量
      */
     public static int getNameCount(String names) {
         int count = 1;
-        int from = names.startsWith("/") ? 1 : 0;
-        int to = names.endsWith("/") ? names.length() - 1 : names.length();
+        int from = nameBegin(names);
+        int to = nameEnd(names, from);
         for (int i = from; i < to; i++) {
             if (names.charAt(i) == '/') {
                 count++;
@@ -22,8 +31,181 @@ public class Names {
     /**
      * 路径名列表
      */
-    public static Iterable<String> getNames(String names) {
-        return Arrays.asList(names.replaceAll("(^/|/$)", "").split("/"));
+    public static List<String> getNames(String names) {
+        int[] offsets = getNameOffsets(names);
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getName(names, offsets, index);
+            }
+
+            @Override
+            public int size() {
+                return offsets.length - 1;
+            }
+        };
+    }
+
+    /**
+     * 遍历路径名（忽略开头及结尾的/），不创建子字符串
+     */
+    public static void forEachName(String names, NameConsumer consumer) {
+        int from = nameBegin(names);
+        int to = nameEnd(names, from);
+        int begin = from;
+        for (int i = from; i < to; i++) {
+            if (names.charAt(i) == '/') {
+                consumer.accept(names, begin, i);
+                begin = i + 1;
+            }
+        }
+        consumer.accept(names, begin, to);
+    }
+
+    /**
+     * 路径名起始位置（忽略开头的/）
+     */
+    private static int nameBegin(String names) {
+        return names.startsWith("/") ? 1 : 0;
+    }
+
+    /**
+     * 路径名结束位置（忽略结尾的/，"/"的开头与结尾为同一个/）
+     */
+    private static int nameEnd(String names, int from) {
+        return names.endsWith("/") && names.length() > from ? names.length() - 1 : names.length();
+    }
+
+    /**
+     * 路径名偏移量，第i个路径名为names.substring(offsets[i], offsets[i + 1] - 1)
+     */
+    public static int[] getNameOffsets(String names) {
+        int[] offsets = new int[getNameCount(names) + 1];
+        forEachName(names, new NameConsumer() {
+            private int index;
+
+            @Override
+            public void accept(String s, int begin, int end) {
+                offsets[index++] = begin;
+                offsets[index] = end + 1;
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * 按偏移量获取路径名
+     */
+    public static String getName(String names, int[] offsets, int index) {
+        return names.substring(offsets[index], offsets[index + 1] - 1);
+    }
+
+    /**
+     * 规范化路径，去掉.、..及多余的/，与URI.normalize一致；无需规范化时返回原字符串
+     */
+    public static String normalize(String names) {
+        if (!needsNormalization(names)) {
+            return names;
+        }
+        boolean absolute = names.startsWith("/");
+        int length = names.length();
+        int[] segments = new int[length + 1]; // 保留的路径名起止位置
+        int count = 0;
+        boolean directory = names.endsWith("/");
+        int begin = absolute ? 1 : 0;
+        while (begin <= length) {
+            int end = names.indexOf('/', begin);
+            if (end < 0) {
+                end = length;
+            }
+            int n = end - begin;
+            if (n == 0) {
+                // 多余的/
+            } else if (n == 1 && names.charAt(begin) == '.') {
+                directory = true;
+            } else if (n == 2 && names.charAt(begin) == '.' && names.charAt(begin + 1) == '.'
+                    && count > 0 && !isParent(names, segments[count * 2 - 2], segments[count * 2 - 1])) {
+                count--;
+                directory = true;
+            } else {
+                segments[count * 2] = begin;
+                segments[count * 2 + 1] = end;
+                count++;
+                directory = end < length;
+            }
+            begin = end + 1;
+        }
+        if (count == 0) {
+            return absolute ? "/" : "";
+        }
+        StringBuilder buffer = new StringBuilder(length);
+        if (absolute) {
+            buffer.append('/');
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                buffer.append('/');
+            }
+            buffer.append(names, segments[i * 2], segments[i * 2 + 1]);
+        }
+        if (directory) {
+            buffer.append('/');
+        }
+        return buffer.toString();
+    }
+
+    private static boolean needsNormalization(String names) {
+        int length = names.length();
+        int begin = 0;
+        while (begin < length) {
+            int end = names.indexOf('/', begin);
+            if (end < 0) {
+                end = length;
+            }
+            int n = end - begin;
+            if (n == 0 && begin > 0) {
+                return true;
+            }
+            if (n == 1 && names.charAt(begin) == '.') {
+                return true;
+            }
+            if (n == 2 && isParent(names, begin, end)) {
+                return true;
+            }
+            begin = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean isParent(String names, int begin, int end) {
+        return end - begin == 2 && names.charAt(begin) == '.' && names.charAt(begin + 1) == '.';
+    }
+
+    /**
+     * 解析相对路径，与URI.resolve一致：以/开头为绝对路径，否则相对于base所在目录
+     */
+    public static String resolve(String base, String other) {
+        if (other.startsWith("/")) {
+            return other;
+        }
+        return normalize(base.substring(0, base.lastIndexOf('/') + 1) + other);
+    }
+
+    /**
+     * 相对路径，与URI.relativize一致：other不在base目录下时返回other
+     */
+    public static String relativize(String base, String other) {
+        String b = normalize(base);
+        String o = normalize(other);
+        if (!b.equals(o)) {
+            if (!b.endsWith("/")) {
+                b = b + "/";
+            }
+            if (!o.startsWith(b)) {
+                return other;
+            }
+        }
+        return o.substring(b.length());
     }
 
     /**
@@ -0,0 +1,286 @@
+package cc.whohow.fs;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 基数树（压缩前缀树），按字符串前缀查找，查找时间与Key长度成正比。非线程安全。
+ */
+public class RadixTrie<V> {
+    private final Node<V> root = new Node<>("");
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(String key) {
+        Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(String key) {
+        return find(key) != null;
+    }
+
+    public V put(String key, V value) {
+        return insert(key).setValue(value);
+    }
+
+    public V computeIfAbsent(String key, Function<? super String, ? extends V> mappingFunction) {
+        Node<V> node = find(key);
+        if (node != null && node.value != null) {
+            return node.value;
+        }
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            insert(key).setValue(value);
+        }
+        return value;
+    }
+
+    public V remove(String key) {
+        Node<V> grandparent = null;
+        Node<V> parent = null;
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            Node<V> child = node.children[index];
+            if (!key.startsWith(child.label, i)) {
+                return null;
+            }
+            i += child.label.length();
+            grandparent = parent;
+            parent = node;
+            node = child;
+        }
+        if (node.key == null) {
+            return null;
+        }
+        V value = node.value;
+        node.key = null;
+        node.value = null;
+        size--;
+        if (parent == null) {
+            return value;
+        }
+        // 删除空节点，合并只有一个子节点的无值节点
+        if (node.children.length == 0) {
+            parent.removeChild(node);
+            if (parent != root && parent.key == null && parent.children.length == 1) {
+                grandparent.merge(parent);
+            }
+        } else if (node.children.length == 1) {
+            parent.merge(node);
+        }
+        return value;
+    }
+
+    /**
+     * 最长前缀匹配：Key为s前缀的最长条目
+     */
+    public Map.Entry<String, V> longestPrefixOf(String s) {
+        Node<V> match = root.key == null ? null : root;
+        Node<V> node = root;
+        int i = 0;
+        while (i < s.length()) {
+            int index = node.indexOf(s.charAt(i));
+            if (index < 0) {
+                break;
+            }
+            Node<V> child = node.children[index];
+            if (!s.startsWith(child.label, i)) {
+                break;
+            }
+            i += child.label.length();
+            node = child;
+            if (node.key != null) {
+                match = node;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * 按长度升序遍历Key为s前缀的所有条目
+     */
+    public void forEachPrefixOf(String s, Consumer<? super Map.Entry<String, V>> action) {
+        Node<V> node = root;
+        if (node.key != null) {
+            action.accept(node);
+        }
+        int i = 0;
+        while (i < s.length()) {
+            int index = node.indexOf(s.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node<V> child = node.children[index];
+            if (!s.startsWith(child.label, i)) {
+                return;
+            }
+            i += child.label.length();
+            node = child;
+            if (node.key != null) {
+                action.accept(node);
+            }
+        }
+    }
+
+    /**
+     * 按字典序遍历所有条目
+     */
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        forEach(root, action);
+    }
+
+    private void forEach(Node<V> node, BiConsumer<? super String, ? super V> action) {
+        if (node.key != null) {
+            action.accept(node.key, node.value);
+        }
+        for (Node<V> child : node.children) {
+            forEach(child, action);
+        }
+    }
+
+    private Node<V> find(String key) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            Node<V> child = node.children[index];
+            if (!key.startsWith(child.label, i)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+        }
+        return node.key == null ? null : node;
+    }
+
+    private Node<V> insert(String key) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                Node<V> child = new Node<>(key.substring(i));
+                node.addChild(-index - 1, child);
+                node = child;
+                break;
+            }
+            Node<V> child = node.children[index];
+            String label = child.label;
+            int n = 1;
+            while (n < label.length() && i + n < key.length() && label.charAt(n) == key.charAt(i + n)) {
+                n++;
+            }
+            if (n < label.length()) {
+                // 拆分边
+                Node<V> middle = new Node<>(label.substring(0, n));
+                child.label = label.substring(n);
+                middle.addChild(0, child);
+                node.children[index] = middle;
+                child = middle;
+            }
+            i += n;
+            node = child;
+        }
+        if (node.key == null) {
+            node.key = key;
+            size++;
+        }
+        return node;
+    }
+
+    private static final class Node<V> implements Map.Entry<String, V> {
+        @SuppressWarnings("rawtypes")
+        private static final Node[] EMPTY = new Node[0];
+
+        private String label; // 边标签
+        private String key; // 完整Key，null为无值节点
+        private V value;
+        @SuppressWarnings("unchecked")
+        private Node<V>[] children = EMPTY; // 按标签首字符排序
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char m = children[mid].label.charAt(0);
+                if (m < c) {
+                    low = mid + 1;
+                } else if (m > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void addChild(int index, Node<V> child) {
+            Node<V>[] array = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(array, index, array, index + 1, children.length - index);
+            array[index] = child;
+            children = array;
+        }
+
+        private void removeChild(Node<V> child) {
+            int index = indexOf(child.label.charAt(0));
+            Node<V>[] array = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, array, index, children.length - index - 1);
+            children = array;
+        }
+
+        /**
+         * 将只有一个子节点的无值子节点与其子节点合并
+         */
+        private void merge(Node<V> child) {
+            Node<V> grandchild = child.children[0];
+            grandchild.label = child.label + grandchild.label;
+            children[indexOf(child.label.charAt(0))] = grandchild;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 块缓存：按固定大小分块缓存文件内容，Key为Bucket、ObjectKey、ETag及块序号，数据存放在堆外内存（DirectByteBuffer）。
+ * 超出容量时按LRU淘汰；同一块的并发未命中只发起一次Range请求。
+ */
+public class AliyunOSSBlockCache {
+    private final long capacity; // 容量（字节）
+    private final int blockSize; // 块大小（字节）
+    private final LinkedHashMap<Key, ByteBuffer> blocks = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序排序
+    private final Map<Key, CompletableFuture<ByteBuffer>> loading = new HashMap<>(); // 加载中的块
+    private long used; // 已用容量
+    // 统计
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param capacity  容量（字节），不小于块大小
+     * @param blockSize 块大小（字节）
+     */
+    public AliyunOSSBlockCache(long capacity, int blockSize) {
+        if (blockSize <= 0 || capacity < blockSize) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 读取块，返回只读Buffer（position为0，limit为块长度）
+     *
+     * @param eTag  文件ETag，文件修改后Range请求失败
+     * @param size  文件长度
+     * @param index 块序号
+     */
+    public ByteBuffer getBlock(OSSClient client, String bucketName, String objectKey, String eTag,
+                               long size, long index) throws IOException {
+        Key key = new Key(bucketName, objectKey, eTag, index);
+        CompletableFuture<ByteBuffer> future;
+        boolean owner = false;
+        synchronized (this) {
+            ByteBuffer block = blocks.get(key);
+            if (block != null) {
+                hitCount++;
+                return block.asReadOnlyBuffer();
+            }
+            missCount++;
+            future = loading.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                ByteBuffer block = load(client, key, size);
+                synchronized (this) {
+                    loading.remove(key);
+                    put(key, block);
+                }
+                future.complete(block);
+                return block.asReadOnlyBuffer();
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    loading.remove(key);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.get().asReadOnlyBuffer();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void put(Key key, ByteBuffer block) {
+        ByteBuffer old = blocks.put(key, block);
+        if (old != null) {
+            used -= old.capacity();
+        }
+        used += block.capacity();
+        Iterator<ByteBuffer> iterator = blocks.values().iterator();
+        while (used > capacity && iterator.hasNext()) {
+            ByteBuffer eldest = iterator.next();
+            if (eldest == block) {
+                break;
+            }
+            iterator.remove();
+            used -= eldest.capacity();
+            evictionCount++;
+        }
+    }
+
+    private ByteBuffer load(OSSClient client, Key key, long size) throws IOException {
+        long begin = key.index * blockSize;
+        if (begin >= size) {
+            throw new IllegalArgumentException();
+        }
+        long end = Math.min(size, begin + blockSize);
+        GetObjectRequest getObjectRequest = new GetObjectRequest(key.bucketName, key.objectKey);
+        getObjectRequest.setRange(begin, end - 1);
+        getObjectRequest.setMatchingETagConstraints(Collections.singletonList(key.eTag));
+        OSSObject object;
+        try {
+            object = client.getObject(getObjectRequest);
+        } catch (OSSException e) {
+            if (OSSErrorCode.PRECONDITION_FAILED.equals(e.getErrorCode())) {
+                throw new IOException("ObjectModified: " + key.objectKey, e);
+            }
+            throw e;
+        }
+        ByteBuffer block = ByteBuffer.allocateDirect((int) (end - begin));
+        try (InputStream stream = object.getObjectContent();
+             ReadableByteChannel channel = Channels.newChannel(stream)) {
+            while (block.hasRemaining()) {
+                if (channel.read(block) < 0) {
+                    throw new IOException("UnexpectedEndOfStream: " + key.objectKey + "@" + (begin + block.position()));
+                }
+            }
+        }
+        block.flip();
+        return block;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        blocks.clear();
+        used = 0;
+    }
+
+    /**
+     * 已用容量（字节）
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * 缓存块数
+     */
+    public synchronized int getBlockCount() {
+        return blocks.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 命中率
+     */
+    public synchronized double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[BlockCache] " + blocks.size() + " blocks, " + used + "/" + capacity + " bytes, hit ratio "
+                + getHitRatio() + ", evictions " + evictionCount;
+    }
+
+    private static final class Key {
+        private final String bucketName;
+        private final String objectKey;
+        private final String eTag;
+        private final long index;
+
+        private Key(String bucketName, String objectKey, String eTag, long index) {
+            this.bucketName = bucketName;
+            this.objectKey = objectKey;
+            this.eTag = eTag;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return index == that.index && objectKey.equals(that.objectKey)
+                    && bucketName.equals(that.bucketName) && Objects.equals(eTag, that.eTag);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((bucketName.hashCode() * 31 + objectKey.hashCode()) * 31 + Objects.hashCode(eTag)) * 31
+                    + Long.hashCode(index);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 基于OSS追加上传（AppendObject）的集群监听共享存储
+ */
+public class AliyunOSSBucketWatchLogStore implements AliyunOSSWatchLogStore {
+    private final OSSClient client;
+    private final String bucketName;
+    private final String prefix; // 存储目录
+
+    public AliyunOSSBucketWatchLogStore(OSSClient client, String bucketName, String prefix) {
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            throw new IllegalArgumentException();
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public long append(String name, long position, byte[] data) throws IOException {
+        try {
+            return client.appendObject(new AppendObjectRequest(bucketName, prefix + name, new ByteArrayInputStream(data))
+                    .withPosition(position)).getNextPosition();
+        } catch (OSSException e) {
+            if (OSSErrorCode.POSITION_NOT_EQUAL_TO_LENGTH.equals(e.getErrorCode())
+                    || OSSErrorCode.OBJECT_NOT_APPENDALBE.equals(e.getErrorCode())) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public long length(String name) throws IOException {
+        try {
+            return client.getSimplifiedObjectMeta(bucketName, prefix + name).getSize();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] read(String name, long position, int maxLength) throws IOException {
+        long length = length(name);
+        if (length <= position) {
+            return new byte[0];
+        }
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, prefix + name);
+        getObjectRequest.setRange(position, Math.min(length, position + maxLength) - 1);
+        try (OSSObject object = client.getObject(getObjectRequest);
+             InputStream stream = object.getObjectContent()) {
+            return IOUtils.readStreamAsByteArray(stream);
+        }
+    }
+
+    @Override
+    public List<String> list(String namePrefix) throws IOException {
+        List<String> names = new ArrayList<>();
+        Iterator<OSSObjectSummary> iterator = new AliyunOSSObjectSummaryIterator(client, bucketName, prefix + namePrefix, "/");
+        while (iterator.hasNext()) {
+            String key = iterator.next().getKey();
+            if (!key.endsWith("/")) {
+                names.add(key.substring(prefix.length()));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        client.deleteObject(bucketName, prefix + name);
+    }
+}
@@ -0,0 +1,36 @@
+package cc.whohow.fs.aliyun;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+/**
+ * 推送的对象变更
+ */
+public class AliyunOSSChange {
+    private final WatchEvent.Kind<Path> kind; // 事件类型
+    private final String bucketName;
+    private final String objectKey;
+
+    public AliyunOSSChange(WatchEvent.Kind<Path> kind, String bucketName, String objectKey) {
+        this.kind = kind;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+    }
+
+    public WatchEvent.Kind<Path> getKind() {
+        return kind;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    @Override
+    public String toString() {
+        return kind.name() + " " + bucketName + "/" + objectKey;
+    }
+}
@@ -0,0 +1,18 @@
+package cc.whohow.fs.aliyun;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 对象变更推送源。推送的变更由监听服务直接分发，轮询作为低频对账补充；同一变更可能被推送及轮询各通知一次。
+ */
+public interface AliyunOSSChangeSource extends AutoCloseable {
+    /**
+     * 开始接收变更，每批变更回调一次
+     */
+    void start(Consumer<List<AliyunOSSChange>> consumer) throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,70 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OSS客户端注册表，相同凭证及接入点共享一个客户端（连接池），引用计数归零时关闭客户端
+ */
+public class AliyunOSSClientRegistry {
+    private static final AliyunOSSClientRegistry DEFAULT = new AliyunOSSClientRegistry();
+
+    // Key为accessKeyId:secretAccessKey@endpoint
+    private final Map<String, Entry> clients = new HashMap<>();
+
+    public static AliyunOSSClientRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    private static String key(String accessKeyId, String secretAccessKey, String endpoint) {
+        return accessKeyId + ":" + secretAccessKey + "@" + endpoint;
+    }
+
+    /**
+     * 获取客户端，引用计数加1，使用完后需调用release
+     */
+    public synchronized OSSClient acquire(String accessKeyId, String secretAccessKey, String endpoint) {
+        Entry entry = clients.computeIfAbsent(key(accessKeyId, secretAccessKey, endpoint),
+                self -> new Entry(new OSSClient(endpoint, accessKeyId, secretAccessKey)));
+        entry.references++;
+        return entry.client;
+    }
+
+    /**
+     * 释放客户端，引用计数减1，归零时关闭客户端
+     */
+    public void release(String accessKeyId, String secretAccessKey, String endpoint) {
+        OSSClient client;
+        synchronized (this) {
+            String key = key(accessKeyId, secretAccessKey, endpoint);
+            Entry entry = clients.get(key);
+            if (entry == null) {
+                throw new IllegalStateException();
+            }
+            if (--entry.references > 0) {
+                return;
+            }
+            clients.remove(key);
+            client = entry.client;
+        }
+        client.shutdown();
+    }
+
+    /**
+     * 共享客户端数
+     */
+    public synchronized int size() {
+        return clients.size();
+    }
+
+    private static class Entry {
+        private final OSSClient client;
+        private int references; // 引用计数
+
+        private Entry(OSSClient client) {
+            this.client = client;
+        }
+    }
+}
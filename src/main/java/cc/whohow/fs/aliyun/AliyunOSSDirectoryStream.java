@@ -12,6 +12,7 @@ import java.util.stream.StreamSupport;
  */
 public class AliyunOSSDirectoryStream implements DirectoryStream<Path> {
     private final AliyunOSSPath directory;
+    private volatile AliyunOSSObjectSummaryIterator iterator; // 关闭时取消预取
 
     public AliyunOSSDirectoryStream(AliyunOSSPath directory) {
         if (directory.isFile()) {
@@ -22,14 +23,17 @@ public class AliyunOSSDirectoryStream implements DirectoryStream<Path> {
 
     @Override
     public Iterator<Path> iterator() {
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                new AliyunOSSObjectSummaryIterator(directory.getClient(), directory.getBucketName(), directory.getObjectKey()), 0), false)
+        iterator = directory.provider().newObjectSummaryIterator(
+                directory.getClient(), directory.getBucketName(), directory.getObjectKey(), null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, 0), false)
                 .map(self -> (Path) new AliyunOSSPath(directory.getFileSystem(),"/" + self.getKey()))
                 .iterator();
     }
 
     @Override
     public void close() throws IOException {
-        // do nothing
+        if (iterator != null) {
+            iterator.close();
+        }
     }
 }
@@ -0,0 +1,419 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.SimplifiedObjectMeta;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 磁盘缓存：将整个文件缓存到本地目录，按Bucket、ObjectKey及ETag存放，超出容量时按LRU淘汰。
+ * 索引保存在目录下的index文件中，重启后继续使用；缓存文件在距上次校验超过校验间隔后，访问时通过HEAD请求比较ETag（惰性校验）。
+ * 缓存文件在锁内打开，之后被淘汰删除不影响已打开的Channel；索引变化后延迟合并保存，关闭时保存。
+ */
+public class AliyunOSSDiskCache implements AutoCloseable {
+    static final int MAGIC = 0x4F535344; // OSSD
+    static final int VERSION = 1;
+    static final String INDEX = "index";
+    static final String SUFFIX = ".data";
+    private static final long SAVE_DELAY = 1000; // 索引延迟保存时间（毫秒）
+
+    private final File directory; // 缓存目录
+    private final long capacity; // 容量（字节）
+    private final long validateInterval; // 校验间隔（毫秒）
+    private final long chunkSize; // 下载分块大小
+    private final int parallelism; // 下载并发数
+    private final Executor executor; // 下载线程池
+    private final ScheduledExecutorService scheduler; // 索引延迟保存，null为只在关闭时保存
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序排序，Key为bucketName/objectKey
+    private final Map<String, CompletableFuture<Entry>> loading = new HashMap<>(); // 下载中的文件
+    private long used; // 已用容量
+    private boolean dirty; // 索引有未保存的变化
+    // 统计
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public AliyunOSSDiskCache(File directory, long capacity, long validateInterval,
+                              long chunkSize, int parallelism, Executor executor,
+                              ScheduledExecutorService scheduler) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+        this.validateInterval = validateInterval;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        Files.createDirectories(directory.toPath());
+        load();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 打开缓存文件，未缓存时下载；文件超出缓存容量时返回null
+     */
+    public FileChannel open(OSSClient client, String bucketName, String objectKey) throws IOException {
+        String key = bucketName + "/" + objectKey;
+        // 下载后、打开前可能被并发写入淘汰，重试一次
+        for (int i = 0; i < 2; i++) {
+            Entry entry = get(client, bucketName, objectKey);
+            if (entry == null) {
+                return null;
+            }
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    return FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Entry get(OSSClient client, String bucketName, String objectKey) throws IOException {
+        String key = bucketName + "/" + objectKey;
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.validatedAt < validateInterval) {
+                hitCount++;
+                return entry;
+            }
+        }
+        SimplifiedObjectMeta objectMeta;
+        try {
+            objectMeta = client.getSimplifiedObjectMeta(bucketName, objectKey);
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                invalidate(bucketName, objectKey);
+            }
+            throw e;
+        }
+        if (entry != null && entry.eTag.equals(objectMeta.getETag())) {
+            synchronized (this) {
+                entry.validatedAt = System.currentTimeMillis();
+                hitCount++;
+            }
+            return entry;
+        }
+        if (objectMeta.getSize() > capacity) {
+            return null;
+        }
+        return download(client, bucketName, objectKey, objectMeta.getETag());
+    }
+
+    /**
+     * 读取缓存文件，返回只读MappedByteBuffer；文件超出缓存容量或大于2GB时返回null
+     */
+    public ByteBuffer map(OSSClient client, String bucketName, String objectKey) throws IOException {
+        try (FileChannel channel = open(client, bucketName, objectKey)) {
+            if (channel == null || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * 按已知ETag（如遍历结果）校验缓存，ETag一致时延长有效期，否则移除缓存
+     */
+    public void validate(String bucketName, String objectKey, String eTag) {
+        String key = bucketName + "/" + objectKey;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return;
+            }
+            if (entry.eTag.equals(eTag)) {
+                entry.validatedAt = System.currentTimeMillis();
+                return;
+            }
+        }
+        invalidate(bucketName, objectKey);
+    }
+
+    /**
+     * 移除缓存
+     */
+    public synchronized void invalidate(String bucketName, String objectKey) {
+        Entry entry = entries.remove(bucketName + "/" + objectKey);
+        if (entry != null) {
+            used -= entry.size;
+            delete(entry.file);
+            markDirty();
+        }
+    }
+
+    private Entry download(OSSClient client, String bucketName, String objectKey, String eTag) throws IOException {
+        String key = bucketName + "/" + objectKey;
+        CompletableFuture<Entry> future;
+        boolean owner = false;
+        synchronized (this) {
+            missCount++;
+            future = loading.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+        try {
+            File file = new File(directory, UUID.nameUUIDFromBytes(
+                    (key + "#" + eTag).getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+            ObjectMetadata objectMetadata = new AliyunOSSFileDownloader(client, bucketName, objectKey, file,
+                    chunkSize, parallelism, executor).download();
+            Entry entry = new Entry(bucketName, objectKey, objectMetadata.getETag(), file.length(), file);
+            if (!entry.eTag.equals(eTag)) {
+                // 下载期间文件被修改，按实际内容重命名
+                File actual = new File(directory, UUID.nameUUIDFromBytes(
+                        (key + "#" + entry.eTag).getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+                Files.move(file.toPath(), actual.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                entry = new Entry(bucketName, objectKey, entry.eTag, entry.size, actual);
+            }
+            synchronized (this) {
+                loading.remove(key);
+                put(key, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                loading.remove(key);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            used -= old.size;
+            if (!old.file.equals(entry.file)) {
+                delete(old.file);
+            }
+        }
+        used += entry.size;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (used > capacity && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (eldest == entry) {
+                break;
+            }
+            iterator.remove();
+            used -= eldest.size;
+            evictionCount++;
+            delete(eldest.file);
+        }
+        markDirty();
+    }
+
+    private static void delete(File file) {
+        // 已打开的文件（含已映射）在POSIX系统上仍可继续读取
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 加载索引，丢弃文件缺失或长度不符的条目，删除索引外的文件（如未完成的下载）；
+     * 索引损坏或格式、版本不符时丢弃整个索引，从空缓存开始
+     */
+    private synchronized void load() throws IOException {
+        File index = new File(directory, INDEX);
+        if (index.exists()) {
+            try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+                if (stream.readInt() == MAGIC && stream.readInt() == VERSION) {
+                    int count = stream.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String bucketName = stream.readUTF();
+                        String objectKey = stream.readUTF();
+                        String eTag = stream.readUTF();
+                        long size = stream.readLong();
+                        File file = new File(directory, stream.readUTF());
+                        if (file.isFile() && file.length() == size) {
+                            // 重启后首次访问时校验
+                            Entry entry = new Entry(bucketName, objectKey, eTag, size, file);
+                            entry.validatedAt = 0;
+                            entries.put(bucketName + "/" + objectKey, entry);
+                            used += size;
+                        }
+                    }
+                }
+            } catch (EOFException | UTFDataFormatException e) {
+                // 索引损坏，丢弃已读取的条目
+                entries.clear();
+                used = 0;
+            }
+        }
+        Set<String> names = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            names.add(entry.file.getName());
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.getName().equals(INDEX) && !names.contains(file.getName())) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 保存索引，写入临时文件后原子替换
+     */
+    public synchronized void save() throws IOException {
+        File index = new File(directory, INDEX);
+        File temp = new File(directory, INDEX + ".tmp");
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            dirty = false;
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(entries.size());
+            // 按访问顺序写入，重启后保持LRU顺序
+            for (Entry entry : entries.values()) {
+                stream.writeUTF(entry.bucketName);
+                stream.writeUTF(entry.objectKey);
+                stream.writeUTF(entry.eTag);
+                stream.writeLong(entry.size);
+                stream.writeUTF(entry.file.getName());
+            }
+        }
+        Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 标记索引已变化，延迟保存，合并期间的多次变化
+     */
+    private void markDirty() {
+        if (dirty) {
+            return;
+        }
+        dirty = true;
+        if (scheduler != null) {
+            try {
+                scheduler.schedule(this::saveQuietly, SAVE_DELAY, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignore) {
+                // 关闭时保存
+            }
+        }
+    }
+
+    private synchronized void saveQuietly() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            // 稍后重试
+            markDirty();
+        }
+    }
+
+    /**
+     * 已用容量（字节）
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * 缓存文件数
+     */
+    public synchronized int getFileCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 命中率
+     */
+    public synchronized double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (dirty) {
+            save();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "[DiskCache] " + directory + " " + entries.size() + " files, " + used + "/" + capacity
+                + " bytes, hit ratio " + getHitRatio() + ", evictions " + evictionCount;
+    }
+
+    private static final class Entry {
+        private final String bucketName;
+        private final String objectKey;
+        private final String eTag;
+        private final long size;
+        private final File file;
+        private long validatedAt; // 上次校验时间，0为未校验
+
+        private Entry(String bucketName, String objectKey, String eTag, long size, File file) {
+            this.bucketName = bucketName;
+            this.objectKey = objectKey;
+            this.eTag = eTag;
+            this.size = size;
+            this.file = file;
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+}
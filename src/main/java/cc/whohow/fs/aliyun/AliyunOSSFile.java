@@ -7,9 +7,13 @@ import com.aliyun.oss.model.SimplifiedObjectMeta;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.WatchEvent;
 import java.util.Objects;
 import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -17,7 +21,8 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
- * 轻量级阿里云文件对象，线程不安全，需自行保证client的状态，如不确定，请clone后使用
+ * 轻量级阿里云文件对象，线程不安全，需自行保证client的状态（close后其他线程不可继续使用），如不确定，请clone后使用。
+ * 客户端从AliyunOSSClientRegistry获取，相同凭证及接入点的文件共享客户端，close时释放
  */
 public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     private static final Pattern NAMES = Pattern.compile("(.*?)([^/]+)/?$");
@@ -27,6 +32,8 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     private final String bucketName;
     private final String endpoint;
     private final String objectKey;
+    private final String bucketUri; // http://[accessKeyId]:[secretAccessKey]@[bucketName].[endpoint]/
+    private final String string; // toString()
     private volatile OSSClient client;
 
     /**
@@ -41,18 +48,22 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
         this.bucketName = host[0];
         this.endpoint = host[1];
         this.objectKey = uri.getPath().substring(1);
+        this.bucketUri = bucketUri(accessKeyId, secretAccessKey, bucketName, endpoint);
+        this.string = "http://" + bucketName + "." + endpoint + "/" + objectKey;
     }
 
     /**
      * 标准参数
      */
     public AliyunOSSFile(String accessKeyId, String secretAccessKey, String bucketName, String endpoint, String objectKey) {
-        this.uri = URI.create(String.format("http://%s:%s@%s.%s/%s", accessKeyId, secretAccessKey, bucketName, endpoint, objectKey));
+        this.bucketUri = bucketUri(accessKeyId, secretAccessKey, bucketName, endpoint);
+        this.uri = URI.create(bucketUri + objectKey);
         this.accessKeyId = accessKeyId;
         this.secretAccessKey = secretAccessKey;
         this.bucketName = bucketName;
         this.endpoint = endpoint;
         this.objectKey = objectKey;
+        this.string = "http://" + bucketName + "." + endpoint + "/" + objectKey;
     }
 
     /**
@@ -65,6 +76,12 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
         this.bucketName = file.bucketName;
         this.endpoint = file.endpoint;
         this.objectKey = file.objectKey;
+        this.bucketUri = file.bucketUri;
+        this.string = file.string;
+    }
+
+    private static String bucketUri(String accessKeyId, String secretAccessKey, String bucketName, String endpoint) {
+        return "http://" + accessKeyId + ":" + secretAccessKey + "@" + bucketName + "." + endpoint + "/";
     }
 
     @Override
@@ -73,10 +90,10 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
         if (client != null) {
-            client.shutdown();
             client = null;
+            AliyunOSSClientRegistry.getDefault().release(accessKeyId, secretAccessKey, endpoint);
         }
     }
 
@@ -104,7 +121,7 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
         if (client == null) {
             synchronized (this) {
                 if (client == null) {
-                    client = new OSSClient(endpoint, accessKeyId, secretAccessKey);
+                    client = AliyunOSSClientRegistry.getDefault().acquire(accessKeyId, secretAccessKey, endpoint);
                 }
             }
         }
@@ -143,7 +160,7 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     public String getParent() {
         Matcher matcher = NAMES.matcher(objectKey);
         if (matcher.matches()) {
-            return String.format("http://%s:%s@%s.%s/%s", accessKeyId, secretAccessKey, bucketName, endpoint, matcher.group(1));
+            return bucketUri + matcher.group(1);
         }
         return null;
     }
@@ -201,7 +218,7 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
                 new AliyunOSSObjectSummaryIterator(getClient(), bucketName, objectKey, "/"), 0), false)
                 .filter(o -> !o.getKey().equals(objectKey))
-                .map(o -> String.format("http://%s:%s@%s.%s/%s", accessKeyId, secretAccessKey, bucketName, endpoint, o.getKey()))
+                .map(o -> bucketUri + o.getKey())
                 .toArray(String[]::new);
     }
 
@@ -233,10 +250,36 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     }
 
     /**
-     * 写，文件需不存在，默认 128KB 缓冲区
+     * 写，文件需不存在，分片上传，默认分片 8MB，并发 4
      */
     public OutputStream newOutputStream() {
-        return new BufferedOutputStream(new AliyunOSSOutputStream(getClient(), bucketName, objectKey), 128 * 1024);
+        return newOutputStream(8 * 1024 * 1024, 4);
+    }
+
+    /**
+     * 写，文件需不存在，分片上传，关闭时完成上传，分片在共享上传线程池（4线程）中上传
+     *
+     * @param partSize    分片大小
+     * @param parallelism 并发上传分片数
+     */
+    public OutputStream newOutputStream(int partSize, int parallelism) {
+        return newOutputStream(partSize, parallelism, UploadExecutor.EXECUTOR);
+    }
+
+    /**
+     * 写，文件需不存在，分片上传，关闭时完成上传。打开时检查文件是否存在，已存在时抛出FileAlreadyExistsException（包装为UncheckedIOException）；
+     * 检查与完成上传之间被其他客户端创建的文件会被覆盖
+     *
+     * @param partSize    分片大小
+     * @param parallelism 并发上传分片数
+     * @param executor    上传线程池
+     */
+    public OutputStream newOutputStream(int partSize, int parallelism, Executor executor) {
+        if (exists()) {
+            throw new UncheckedIOException(new FileAlreadyExistsException(uri.toString()));
+        }
+        return new AliyunOSSMultipartOutputStream(getClient(), bucketName, objectKey,
+                partSize, parallelism, executor);
     }
 
     /**
@@ -290,8 +333,16 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
         return new AliyunOSSFileWatcher(this, listener);
     }
 
+    /**
+     * 监视文件，由协调器按父目录合并轮询
+     */
+    public AliyunOSSFileWatcher watch(BiFunction<WatchEvent.Kind<?>, AliyunOSSFileWatcher, Boolean> listener,
+                                      AliyunOSSFileWatchCoordinator coordinator) {
+        return watch(listener).start(coordinator);
+    }
+
     public String toString() {
-        return String.format("http://%s.%s/%s", bucketName, endpoint, objectKey);
+        return string;
     }
 
     @Override
@@ -304,4 +355,15 @@ public class AliyunOSSFile implements Comparable<AliyunOSSFile>, Closeable {
     public int hashCode() {
         return Objects.hash(bucketName, objectKey);
     }
+
+    /**
+     * 共享上传线程池，首次使用时创建，守护线程
+     */
+    private static final class UploadExecutor {
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "aliyun-oss-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
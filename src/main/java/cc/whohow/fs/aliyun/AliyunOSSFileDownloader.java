@@ -0,0 +1,190 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分块并发下载。按Range并发下载到预分配的临时文件，校验CRC64或ETag后替换目标文件。
+ */
+public class AliyunOSSFileDownloader {
+    private final OSSClient client;
+    private final String bucketName;
+    private final String objectKey;
+    private final File target; // 目标文件
+    private final long chunkSize; // 分块大小
+    private final int parallelism; // 并发下载分块数
+    private final Executor executor; // 下载线程池
+
+    public AliyunOSSFileDownloader(OSSClient client, String bucketName, String objectKey, File target,
+                                   long chunkSize, int parallelism, Executor executor) {
+        if (chunkSize <= 0 || parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * 下载，返回文件元数据
+     */
+    public ObjectMetadata download() throws IOException {
+        ObjectMetadata objectMetadata = client.getObjectMetadata(bucketName, objectKey);
+        long size = objectMetadata.getContentLength();
+        String eTag = objectMetadata.getETag();
+
+        // 同一目标并发下载时各自使用唯一临时文件，前缀至少3个字符
+        String name = target.getName();
+        File temp = File.createTempFile(name.length() < 3 ? name + "___" : name, ".download",
+                target.getAbsoluteFile().getParentFile());
+        try {
+            // 预分配文件
+            try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+                file.setLength(size);
+            }
+            int chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            long[] chunkCRCs = new long[chunkCount];
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                // 每个线程依次领取分块
+                AtomicInteger next = new AtomicInteger(0);
+                List<CompletableFuture<Void>> workers = new ArrayList<>(parallelism);
+                for (int i = 0; i < Math.min(parallelism, chunkCount); i++) {
+                    workers.add(CompletableFuture.runAsync(() -> {
+                        for (int chunk = next.getAndIncrement(); chunk < chunkCount; chunk = next.getAndIncrement()) {
+                            chunkCRCs[chunk] = downloadChunk(channel, eTag, chunk, size);
+                        }
+                    }, executor).whenComplete((r, e) -> {
+                        if (e != null) {
+                            // 失败后其他线程不再领取新分块
+                            next.set(chunkCount);
+                        }
+                    }));
+                }
+                CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+            verify(objectMetadata, temp, chunkCRCs, size);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return objectMetadata;
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 下载分块，按位置写入文件，返回分块CRC64
+     */
+    private long downloadChunk(FileChannel channel, String eTag, int chunk, long size) {
+        long begin = chunk * chunkSize;
+        long end = Math.min(size, begin + chunkSize);
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, objectKey);
+        getObjectRequest.setRange(begin, end - 1);
+        getObjectRequest.setMatchingETagConstraints(Collections.singletonList(eTag));
+        CRC64 crc = new CRC64();
+        try (OSSObject object = client.getObject(getObjectRequest);
+             InputStream stream = object.getObjectContent()) {
+            byte[] buffer = new byte[64 * 1024];
+            long position = begin;
+            while (position < end) {
+                int n = stream.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+                if (n < 0) {
+                    throw new EOFException(objectKey + "@" + position);
+                }
+                crc.update(buffer, 0, n);
+                ByteBuffer src = ByteBuffer.wrap(buffer, 0, n);
+                while (src.hasRemaining()) {
+                    position += channel.write(src, position);
+                }
+            }
+        } catch (OSSException e) {
+            if (OSSErrorCode.PRECONDITION_FAILED.equals(e.getErrorCode())) {
+                throw new UncheckedIOException(new IOException("ObjectModified: " + objectKey, e));
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 校验CRC64，无CRC64时校验ETag（仅非分片上传的普通文件ETag为MD5）
+     */
+    private void verify(ObjectMetadata objectMetadata, File file, long[] chunkCRCs, long size) throws IOException {
+        Long serverCRC = objectMetadata.getServerCRC();
+        if (serverCRC != null) {
+            long crc = 0L;
+            for (int i = 0; i < chunkCRCs.length; i++) {
+                long chunkLength = Math.min(chunkSize, size - i * chunkSize);
+                crc = i == 0 ? chunkCRCs[i] : CRC64.combine(crc, chunkCRCs[i], chunkLength);
+            }
+            if (crc != serverCRC) {
+                throw new IOException("CRC64Mismatch: " + objectKey);
+            }
+            return;
+        }
+        String eTag = objectMetadata.getETag();
+        if (eTag == null) {
+            return;
+        }
+        eTag = eTag.replace("\"", "");
+        if (eTag.length() != 32 || eTag.indexOf('-') >= 0 || !"Normal".equals(objectMetadata.getObjectType())) {
+            return;
+        }
+        if (!eTag.equalsIgnoreCase(md5(file))) {
+            throw new IOException("ETagMismatch: " + objectKey);
+        }
+    }
+
+    private static String md5(File file) throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] buffer = new byte[64 * 1024];
+            for (int n = stream.read(buffer); n >= 0; n = stream.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+            StringBuilder hex = new StringBuilder(32);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
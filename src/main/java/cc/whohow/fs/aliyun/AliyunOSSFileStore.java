@@ -11,7 +11,6 @@ import java.nio.file.attribute.FileStoreAttributeView;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
-import java.util.Spliterators;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -126,8 +125,7 @@ public class AliyunOSSFileStore extends FileStore {
      * 已使用空间，字节
      */
     public long getUsedSpace() {
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                new AliyunOSSObjectSummaryIterator(client, bucketName, null), 0), true)
+        return StreamSupport.stream(new AliyunOSSObjectSummarySpliterator(fileSystemProvider, client, bucketName, null), true)
                 .mapToLong(OSSObjectSummary::getSize)
                 .sum();
     }
@@ -1,13 +1,20 @@
 package cc.whohow.fs.aliyun;
 
 import cc.whohow.fs.FilterDirectoryStream;
+import cc.whohow.fs.HashedWheelTimer;
 import cc.whohow.fs.Names;
+import cc.whohow.fs.RadixTrie;
 import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.utils.IOUtils;
 import com.aliyun.oss.model.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.*;
 import java.nio.file.FileSystem;
@@ -17,6 +24,7 @@ import java.nio.file.attribute.FileAttributeView;
 import java.nio.file.spi.FileSystemProvider;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -25,6 +33,7 @@ import java.util.stream.StreamSupport;
  * 阿里云OSS虚拟文件系统，支持多帐号、多Bucket、多文件夹
  */
 public class AliyunOSSFileSystemProvider extends FileSystemProvider implements AutoCloseable {
+    private static final int DELETE_BATCH_SIZE = 1000; // 批量删除每批最大数量
     private final boolean intranet; // 是否内网环境
     private final Properties properties; // 配置文件
     // OSS客户端缓存，Key为accessKeyId:secretAccessKey@endpoint
@@ -34,10 +43,23 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     // 文件系统缓存及搜索表，Key为URI，按URI长度倒序及URI字典序排序
     private final ConcurrentMap<String, AliyunOSSFileSystem> fileSystems = new ConcurrentSkipListMap<>(
             Comparator.comparing(String::length).reversed().thenComparing(String::compareTo));
+    // 文件系统前缀搜索树，Key为URI，构造后只读
+    private final RadixTrie<AliyunOSSFileSystem> mounts = new RadixTrie<>();
     // 线程池
     private volatile ScheduledExecutorService executor;
+    // 传输线程池，用于分片上传、下载等
+    private volatile ExecutorService transferExecutor;
+    private volatile ExecutorService listenerExecutor;
+    private volatile ExecutorService watchExecutor;
+    private volatile HashedWheelTimer watchTimer;
+    // 块缓存
+    private volatile AliyunOSSBlockCache blockCache;
+    // 磁盘缓存
+    private volatile AliyunOSSDiskCache diskCache;
     // 文件监听服务
     private volatile AliyunOSSWatchService watchService;
+    // 单文件监听合并轮询协调器
+    private volatile AliyunOSSFileWatchCoordinator fileWatchCoordinator;
 
     public AliyunOSSFileSystemProvider(Properties properties) {
         this.intranet = "intranet".equalsIgnoreCase(detectNetwork());
@@ -63,6 +85,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
             AliyunOSSFileSystem fileSystem = new AliyunOSSFileSystem(this, props);
             for (String uri : fileSystem.getAlternativeUris()) {
                 fileSystems.put(uri, fileSystem);
+                mounts.put(uri, fileSystem);
             }
         }
     }
@@ -125,6 +148,189 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         return executor;
     }
 
+    /**
+     * 传输线程池，线程数默认 16
+     */
+    public ExecutorService getTransferExecutor() {
+        if (transferExecutor == null) {
+            synchronized (this) {
+                if (transferExecutor == null) {
+                    transferExecutor = Executors.newFixedThreadPool(
+                            Integer.parseInt(properties.getProperty("transfer-threads", "16")));
+                }
+            }
+        }
+        return transferExecutor;
+    }
+
+    /**
+     * 监听回调投递线程池，线程数默认 4
+     */
+    public ExecutorService getListenerExecutor() {
+        if (listenerExecutor == null) {
+            synchronized (this) {
+                if (listenerExecutor == null) {
+                    listenerExecutor = Executors.newFixedThreadPool(
+                            Integer.parseInt(properties.getProperty("watch-listener-threads", "4")));
+                }
+            }
+        }
+        return listenerExecutor;
+    }
+
+    /**
+     * 监听轮询线程池，执行OSS请求，线程数默认 4
+     */
+    public ExecutorService getWatchExecutor() {
+        if (watchExecutor == null) {
+            synchronized (this) {
+                if (watchExecutor == null) {
+                    watchExecutor = Executors.newFixedThreadPool(
+                            Integer.parseInt(properties.getProperty("watch-io-threads", "4")));
+                }
+            }
+        }
+        return watchExecutor;
+    }
+
+    /**
+     * 监听轮询定时器，时间轮tick默认 100ms，到期任务交给监听轮询线程池执行
+     */
+    public HashedWheelTimer getWatchTimer() {
+        if (watchTimer == null) {
+            synchronized (this) {
+                if (watchTimer == null) {
+                    watchTimer = new HashedWheelTimer(
+                            Long.parseLong(properties.getProperty("watch-tick", "100")), TimeUnit.MILLISECONDS,
+                            512, getWatchExecutor());
+                }
+            }
+        }
+        return watchTimer;
+    }
+
+    /**
+     * 块缓存，cache-capacity为0（默认）时不启用，返回null
+     */
+    public AliyunOSSBlockCache getBlockCache() {
+        long capacity = Long.parseLong(properties.getProperty("cache-capacity", "0"));
+        if (capacity <= 0) {
+            return null;
+        }
+        if (blockCache == null) {
+            synchronized (this) {
+                if (blockCache == null) {
+                    blockCache = new AliyunOSSBlockCache(capacity,
+                            Integer.parseInt(properties.getProperty("cache-block-size", String.valueOf(1024 * 1024))));
+                }
+            }
+        }
+        return blockCache;
+    }
+
+    /**
+     * 磁盘缓存，disk-cache-dir未配置（默认）时不启用，返回null
+     */
+    public AliyunOSSDiskCache getDiskCache() {
+        String directory = properties.getProperty("disk-cache-dir");
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        if (diskCache == null) {
+            synchronized (this) {
+                if (diskCache == null) {
+                    try {
+                        diskCache = new AliyunOSSDiskCache(new File(directory),
+                                Long.parseLong(properties.getProperty("disk-cache-capacity", String.valueOf(10L * 1024 * 1024 * 1024))),
+                                Long.parseLong(properties.getProperty("disk-cache-validate-interval", "60000")),
+                                getDownloadChunkSize(), getDownloadParallelism(), getTransferExecutor(), getExecutor());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+        return diskCache;
+    }
+
+    /**
+     * 从磁盘缓存读取，未启用磁盘缓存或文件超出缓存容量时返回null
+     */
+    private FileChannel openDiskCache(AliyunOSSPath path) throws IOException {
+        AliyunOSSDiskCache cache = getDiskCache();
+        if (cache == null) {
+            return null;
+        }
+        return cache.open(path.getClient(), path.getBucketName(), path.getObjectKey());
+    }
+
+    /**
+     * 分片上传分片大小，默认 8MB
+     */
+    public int getMultipartPartSize() {
+        return Integer.parseInt(properties.getProperty("multipart-part-size", String.valueOf(8 * 1024 * 1024)));
+    }
+
+    /**
+     * 分片上传并发数，默认 4
+     */
+    public int getMultipartParallelism() {
+        return Integer.parseInt(properties.getProperty("multipart-parallelism", "4"));
+    }
+
+    /**
+     * 分块下载分块大小，默认 8MB
+     */
+    public long getDownloadChunkSize() {
+        return Long.parseLong(properties.getProperty("download-chunk-size", String.valueOf(8 * 1024 * 1024)));
+    }
+
+    /**
+     * 分块下载并发数，默认 4
+     */
+    public int getDownloadParallelism() {
+        return Integer.parseInt(properties.getProperty("download-parallelism", "4"));
+    }
+
+    /**
+     * 遍历分页大小，默认 1000
+     */
+    public int getListMaxKeys() {
+        return Integer.parseInt(properties.getProperty("list-max-keys", "1000"));
+    }
+
+    /**
+     * 遍历预取分页数，默认 1，0为不预取
+     */
+    public int getListPrefetch() {
+        return Integer.parseInt(properties.getProperty("list-prefetch", "1"));
+    }
+
+    /**
+     * 递归遍历并行拆分方式，delimiter：按子目录拆分（默认），sampling：采样Key分布按范围拆分
+     */
+    public String getListSplitMode() {
+        return properties.getProperty("list-split-mode", "delimiter");
+    }
+
+    /**
+     * 按范围拆分时的期望分段数，默认 16
+     */
+    public int getListPartitions() {
+        return Integer.parseInt(properties.getProperty("list-partitions", "16"));
+    }
+
+    /**
+     * 断点续传检查点目录，默认为临时目录下aliyun-oss-upload
+     */
+    public File getUploadCheckpointDirectory() {
+        String directory = properties.getProperty("upload-checkpoint-dir");
+        if (directory == null) {
+            return new File(System.getProperty("java.io.tmpdir"), "aliyun-oss-upload");
+        }
+        return new File(directory);
+    }
+
     public AliyunOSSWatchService getWatchService() {
         if (watchService == null) {
             synchronized (this) {
@@ -136,6 +342,29 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         return watchService;
     }
 
+    /**
+     * 单文件监听合并轮询协调器，轮询间隔默认 60s，同一目录下监听文件数达到16个后改为遍历目录
+     */
+    public AliyunOSSFileWatchCoordinator getFileWatchCoordinator() {
+        if (fileWatchCoordinator == null) {
+            synchronized (this) {
+                if (fileWatchCoordinator == null) {
+                    fileWatchCoordinator = new AliyunOSSFileWatchCoordinator(getWatchTimer(),
+                            Long.parseLong(properties.getProperty("file-watch-interval", "60000")), TimeUnit.MILLISECONDS,
+                            Integer.parseInt(properties.getProperty("file-watch-group-threshold", "16")));
+                }
+            }
+        }
+        return fileWatchCoordinator;
+    }
+
+    /**
+     * 监听单个文件，通过共享协调器合并轮询
+     */
+    public AliyunOSSFileWatcher watch(AliyunOSSFile file, BiFunction<WatchEvent.Kind<?>, AliyunOSSFileWatcher, Boolean> listener) {
+        return file.watch(listener, getFileWatchCoordinator());
+    }
+
     @Override
     public AliyunOSSPath getPath(URI uri) {
         return getPath(uri.toString());
@@ -145,13 +374,13 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 查找对应的路径
      */
     public AliyunOSSPath getPath(String uri) {
-        return fileSystems.entrySet().stream() //
-                // 前缀是否匹配
-                .filter(self -> uri.startsWith(self.getKey()))
-                // 去掉前缀，转为相对路径（虚拟路径）
-                .map(self -> self.getValue().getPath("/" + uri.substring(self.getKey().length())))
-                .findFirst()
-                .orElse(null);
+        // 最长前缀匹配
+        Map.Entry<String, AliyunOSSFileSystem> mount = mounts.longestPrefixOf(uri);
+        if (mount == null) {
+            return null;
+        }
+        // 去掉前缀，转为相对路径（虚拟路径）
+        return mount.getValue().getPath("/" + uri.substring(mount.getKey().length()));
     }
 
     /**
@@ -198,13 +427,25 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     }
 
     /**
-     * 拷贝（上传）
+     * 拷贝（上传），大文件分片并发上传，支持断点续传
      */
     public AliyunOSSPath copy(File source, AliyunOSSPath target) {
-        target.getClient().putObject(target.getBucketName(), target.getObjectKey(), source);
+        upload(source, target.getClient(), target.getBucketName(), target.getObjectKey());
         return target;
     }
 
+    /**
+     * 上传文件，大文件分片并发上传，支持断点续传
+     */
+    private void upload(File source, OSSClient client, String bucketName, String objectKey) {
+        try {
+            new AliyunOSSFileUploader(client, bucketName, objectKey, source,
+                    getUploadCheckpointDirectory(), getMultipartParallelism(), getTransferExecutor()).upload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 拷贝（上传）
      */
@@ -255,7 +496,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
                     // 加上文件夹前缀，转为OSS中ObjectKey
                     String objectKey = prefix + relative.toString().replace(relative.getFileSystem().getSeparator(), "/");
                     // 上传
-                    client.putObject(bucketName, objectKey, self.toFile());
+                    upload(self.toFile(), client, bucketName, objectKey);
                 });
         return target;
     }
@@ -268,13 +509,33 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     }
 
     /**
-     * 拷贝（下载）
+     * 拷贝（下载），大文件分块并发下载
      */
     public File copy(AliyunOSSPath source, File target) {
-        source.getClient().getObject(new GetObjectRequest(source.getBucketName(), source.getObjectKey()), target);
+        try (FileChannel cached = openDiskCache(source)) {
+            if (cached != null) {
+                Files.copy(Channels.newInputStream(cached), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return target;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        download(source.getClient(), source.getBucketName(), source.getObjectKey(), target);
         return target;
     }
 
+    /**
+     * 下载文件，大文件分块并发下载，校验CRC64或ETag
+     */
+    private void download(OSSClient client, String bucketName, String objectKey, File target) {
+        try {
+            new AliyunOSSFileDownloader(client, bucketName, objectKey, target,
+                    getDownloadChunkSize(), getDownloadParallelism(), getTransferExecutor()).download();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 拷贝（下载）文件夹
      */
@@ -301,7 +562,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
                     if (!parent.exists()) {
                         parent.mkdirs();
                     }
-                    client.getObject(new GetObjectRequest(self.getBucketName(), self.getKey()), file);
+                    download(client, self.getBucketName(), self.getKey(), file);
                 });
         return target;
     }
@@ -556,13 +817,32 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     }
 
     /**
-     * 静默删除
+     * 静默删除，按客户端及Bucket分组批量删除
      */
     public void deleteQuietly(Collection<String> list) {
         if (list == null || list.isEmpty()) {
             return;
         }
-        list.parallelStream().forEach(this::deleteQuietly);
+        Map<OSSClient, Map<String, List<String>>> groups = new HashMap<>();
+        for (String uri : list) {
+            try {
+                AliyunOSSPath path = getPath(uri);
+                if (path != null && path.getObjectKey() != null) {
+                    groups.computeIfAbsent(path.getClient(), self -> new HashMap<>())
+                            .computeIfAbsent(path.getBucketName(), self -> new ArrayList<>())
+                            .add(path.getObjectKey());
+                }
+            } catch (Throwable ignore) {
+            }
+        }
+        for (Map.Entry<OSSClient, Map<String, List<String>>> client : groups.entrySet()) {
+            for (Map.Entry<String, List<String>> bucket : client.getValue().entrySet()) {
+                try {
+                    deleteObjects(client.getKey(), bucket.getKey(), bucket.getValue().iterator());
+                } catch (Throwable ignore) {
+                }
+            }
+        }
     }
 
     /**
@@ -576,11 +856,76 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 删除文件夹，小心使用
      */
     public void deleteRecursively(AliyunOSSPath path) {
-        OSSClient client = path.getClient();
-        // 遍历文件夹
-        StreamSupport.stream(listObjectsRecursively(path).spliterator(), true)
-                .filter(self -> !self.getKey().endsWith("/"))
-                .forEach(self -> client.deleteObject(self.getBucketName(), self.getKey()));
+        // 遍历文件夹，拆分为多段，每段分别批量删除
+        List<String> failed = split(listObjectsRecursively(path).spliterator(), getListPartitions()).parallelStream()
+                .flatMap(part -> deleteObjects(path.getClient(), path.getBucketName(),
+                        StreamSupport.stream(part, false)
+                                .map(OSSObjectSummary::getKey)
+                                .filter(self -> !self.endsWith("/"))
+                                .iterator()).stream())
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            throw new UncheckedIOException(new IOException("DeleteFailed: " + failed.size() + " objects, " +
+                    failed.subList(0, Math.min(10, failed.size()))));
+        }
+    }
+
+    /**
+     * 拆分遍历器，最多拆分为max段
+     */
+    private static <T> List<Spliterator<T>> split(Spliterator<T> spliterator, int max) {
+        List<Spliterator<T>> parts = new ArrayList<>();
+        parts.add(spliterator);
+        for (int i = 0; i < parts.size() && parts.size() < max; ) {
+            Spliterator<T> part = parts.get(i).trySplit();
+            if (part == null) {
+                i++;
+            } else {
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 批量删除，每批最多1000个，简单模式，删除当前批次时继续遍历下一批，返回删除失败的ObjectKey
+     */
+    public List<String> deleteObjects(OSSClient client, String bucketName, Iterator<String> objectKeys) {
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        Deque<CompletableFuture<Void>> pending = new ArrayDeque<>();
+        List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        while (objectKeys.hasNext()) {
+            batch.add(objectKeys.next());
+            if (batch.size() == DELETE_BATCH_SIZE || !objectKeys.hasNext()) {
+                // 最多同时删除2批
+                if (pending.size() >= 2) {
+                    pending.poll().join();
+                }
+                List<String> keys = batch;
+                pending.offer(CompletableFuture.runAsync(() -> failed.addAll(deleteObjects(client, bucketName, keys)),
+                        getTransferExecutor()));
+                batch = new ArrayList<>(DELETE_BATCH_SIZE);
+            }
+        }
+        while (!pending.isEmpty()) {
+            pending.poll().join();
+        }
+        return failed;
+    }
+
+    /**
+     * 删除一批，返回删除失败的ObjectKey
+     */
+    private List<String> deleteObjects(OSSClient client, String bucketName, List<String> objectKeys) {
+        try {
+            // 简单模式只返回删除失败的ObjectKey
+            DeleteObjectsResult result = client.deleteObjects(
+                    new DeleteObjectsRequest(bucketName).withKeys(objectKeys).withQuiet(true));
+            List<String> failed = result.getDeletedObjects();
+            return failed == null ? Collections.emptyList() : failed;
+        } catch (Exception e) {
+            return objectKeys;
+        }
     }
 
     /**
@@ -663,7 +1008,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         if (path.isFile()) {
             return getMetadata(path).getContentLength();
         }
-        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), false)
+        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), true)
                 .filter(self -> !self.getKey().endsWith("/"))
                 .mapToLong(OSSObjectSummary::getSize)
                 .sum();
@@ -683,7 +1028,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         if (path.isFile()) {
             return 1L;
         }
-        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), false)
+        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), true)
                 .filter(self -> !self.getKey().endsWith("/"))
                 .count();
     }
@@ -702,7 +1047,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         if (path.isFile()) {
             return getMetadata(path).getLastModified();
         }
-        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), false)
+        return StreamSupport.stream(listObjectsRecursively(path).spliterator(), true)
                 .map(OSSObjectSummary::getLastModified)
                 .filter(Objects::nonNull)
                 .max(Date::compareTo)
@@ -720,6 +1065,14 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 读取文件
      */
     public InputStream newInputStream(AliyunOSSPath path) {
+        try {
+            FileChannel cached = openDiskCache(path);
+            if (cached != null) {
+                return Channels.newInputStream(cached);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return path.getClient().getObject(path.getBucketName(), path.getObjectKey()).getObjectContent();
     }
 
@@ -734,6 +1087,18 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 读取文件内容
      */
     public byte[] getContent(AliyunOSSPath path) throws IOException {
+        try (FileChannel cached = openDiskCache(path)) {
+            if (cached != null && cached.size() <= Integer.MAX_VALUE) {
+                // 直接读入结果数组，不经过映射再复制
+                ByteBuffer buffer = ByteBuffer.wrap(new byte[(int) cached.size()]);
+                while (buffer.hasRemaining()) {
+                    if (cached.read(buffer) < 0) {
+                        throw new EOFException(path.toString());
+                    }
+                }
+                return buffer.array();
+            }
+        }
         try (InputStream stream = newInputStream(path)) {
             return IOUtils.readStreamAsByteArray(stream);
         }
@@ -763,11 +1128,21 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     }
 
     /**
-     * 写入文件，文件需不存在，默认 128KB 缓冲区
+     * 写入文件，分片上传，关闭时完成上传
      */
     public OutputStream newOutputStream(AliyunOSSPath path) {
-        return new BufferedOutputStream(new AliyunOSSOutputStream(
-                path.getClient(), path.getBucketName(), path.getObjectKey()), 128 * 1024);
+        return newOutputStream(path, getMultipartPartSize(), getMultipartParallelism());
+    }
+
+    /**
+     * 写入文件，分片上传，关闭时完成上传
+     *
+     * @param partSize    分片大小
+     * @param parallelism 并发上传分片数
+     */
+    public OutputStream newOutputStream(AliyunOSSPath path, int partSize, int parallelism) {
+        return new AliyunOSSMultipartOutputStream(path.getClient(), path.getBucketName(), path.getObjectKey(),
+                partSize, parallelism, getTransferExecutor());
     }
 
     /**
@@ -828,7 +1203,7 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 列出文件夹下所有文件及目录
      */
     public Iterable<OSSObjectSummary> listObjects(AliyunOSSPath path) {
-        return () -> new AliyunOSSObjectSummaryIterator(path.getClient(), path.getBucketName(), path.getObjectKey(), "/");
+        return () -> newObjectSummaryIterator(path.getClient(), path.getBucketName(), path.getObjectKey(), "/");
     }
 
     /**
@@ -875,7 +1250,42 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
      * 递归列出文件夹下所有文件及目录
      */
     public Iterable<OSSObjectSummary> listObjectsRecursively(AliyunOSSPath path) {
-        return () -> new AliyunOSSObjectSummaryIterator(path.getClient(), path.getBucketName(), path.getObjectKey());
+        return new AliyunOSSObjectSummaries(this, path.getClient(), path.getBucketName(), path.getObjectKey());
+    }
+
+    /**
+     * 创建OSS对象遍历器，按配置设置分页大小及预取分页数
+     *
+     * @param delimiter 分隔符，null为递归遍历
+     */
+    public AliyunOSSObjectSummaryIterator newObjectSummaryIterator(OSSClient client, String bucketName, String prefix, String delimiter) {
+        return newObjectSummaryIterator(client, bucketName, prefix, null, delimiter);
+    }
+
+    /**
+     * 创建OSS对象遍历器，从Marker之后开始遍历
+     *
+     * @param marker    起始Marker（不含），null为从头开始
+     * @param delimiter 分隔符，null为递归遍历
+     */
+    public AliyunOSSObjectSummaryIterator newObjectSummaryIterator(OSSClient client, String bucketName, String prefix,
+                                                                   String marker, String delimiter) {
+        return newObjectSummaryIterator(client, bucketName, prefix, marker, null, delimiter);
+    }
+
+    /**
+     * 创建OSS对象遍历器，遍历范围(marker, end]，达到结束Key后不再请求后续分页
+     *
+     * @param marker    起始Marker（不含），null为从头开始
+     * @param end       结束Key（含），null为到末尾
+     * @param delimiter 分隔符，null为递归遍历
+     */
+    public AliyunOSSObjectSummaryIterator newObjectSummaryIterator(OSSClient client, String bucketName, String prefix,
+                                                                   String marker, String end, String delimiter) {
+        int prefetch = getListPrefetch();
+        return new AliyunOSSObjectSummaryIterator(client,
+                new ListObjectsRequest(bucketName, prefix, marker, delimiter, getListMaxKeys()),
+                prefetch, prefetch > 0 ? getTransferExecutor() : null, end);
     }
 
     @Override
@@ -897,9 +1307,100 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
     @Override
     public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>[] attrs) throws IOException {
         AliyunOSSPath aliyunOSSPath = (AliyunOSSPath) path;
+        if (!options.contains(StandardOpenOption.WRITE) && !options.contains(StandardOpenOption.APPEND)) {
+            // 只读，按需Range读取
+            return new AliyunOSSSeekableByteChannel(aliyunOSSPath.getClient(), aliyunOSSPath.getBucketName(), aliyunOSSPath.getObjectKey(),
+                    getBlockCache());
+        }
+        // 读写，下载到临时文件
         return new AliyunOSSFileChannel(aliyunOSSPath.getClient(), aliyunOSSPath.getBucketName(), aliyunOSSPath.getObjectKey());
     }
 
+    /**
+     * 流式读取（GET），不经过临时文件
+     */
+    @Override
+    public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+        for (OpenOption option : options) {
+            if (option == StandardOpenOption.WRITE || option == StandardOpenOption.APPEND) {
+                throw new IllegalArgumentException(option.toString());
+            }
+        }
+        AliyunOSSPath aliyunOSSPath = (AliyunOSSPath) path;
+        AliyunOSSBlockCache cache = getBlockCache();
+        if (cache != null && getDiskCache() == null) {
+            // 按块读取，经过块缓存
+            return Channels.newInputStream(new AliyunOSSSeekableByteChannel(aliyunOSSPath.getClient(),
+                    aliyunOSSPath.getBucketName(), aliyunOSSPath.getObjectKey(), cache));
+        }
+        try {
+            return newInputStream(aliyunOSSPath);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                throw new NoSuchFileException(path.toString());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 流式写入：默认分片上传，关闭时完成上传；APPEND为追加写入（AppendObject），从当前文件长度开始
+     */
+    @Override
+    public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+        Set<OpenOption> opts = new HashSet<>(Arrays.asList(options));
+        if (opts.isEmpty()) {
+            opts.add(StandardOpenOption.CREATE);
+            opts.add(StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        if (opts.contains(StandardOpenOption.READ)) {
+            throw new IllegalArgumentException(StandardOpenOption.READ.toString());
+        }
+        boolean append = opts.contains(StandardOpenOption.APPEND);
+        if (append && opts.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
+            throw new IllegalArgumentException(StandardOpenOption.APPEND + " + " + StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        AliyunOSSPath aliyunOSSPath = (AliyunOSSPath) path;
+        if (aliyunOSSPath.isDirectory()) {
+            throw new IllegalArgumentException(path.toString());
+        }
+        boolean createNew = opts.contains(StandardOpenOption.CREATE_NEW);
+        boolean create = opts.contains(StandardOpenOption.CREATE);
+        // 只在需要文件长度或是否存在时HEAD：CREATE覆盖写入不需要
+        long length = 0L;
+        if (createNew ? !append : (append || !create)) {
+            length = getLength(aliyunOSSPath);
+            if (createNew && length >= 0) {
+                throw new FileAlreadyExistsException(path.toString());
+            }
+            if (length < 0 && !createNew && !create) {
+                throw new NoSuchFileException(path.toString());
+            }
+        }
+        if (append) {
+            // 追加写入，CREATE_NEW从位置0追加，文件已存在时追加失败
+            return new BufferedOutputStream(new AliyunOSSOutputStream(aliyunOSSPath.getClient(),
+                    aliyunOSSPath.getBucketName(), aliyunOSSPath.getObjectKey(), Math.max(0L, length)), getMultipartPartSize());
+        }
+        return newOutputStream(aliyunOSSPath);
+    }
+
+    /**
+     * 文件长度，文件不存在返回-1
+     */
+    private long getLength(AliyunOSSPath path) {
+        try {
+            return path.getClient().getSimplifiedObjectMeta(path.getBucketName(), path.getObjectKey()).getSize();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                return -1L;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
         AliyunOSSDirectoryStream directoryStream = new AliyunOSSDirectoryStream((AliyunOSSPath) dir);
@@ -1021,8 +1522,21 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
 
     @Override
     public void close() throws Exception {
-        closeExecutor();
+        // 先关闭使用线程池的监听、缓存，再关闭线程池
+        if (fileWatchCoordinator != null) {
+            fileWatchCoordinator.close();
+        }
         closeWatchService();
+        closeWatchTimer();
+        if (blockCache != null) {
+            blockCache.clear();
+        }
+        if (diskCache != null) {
+            diskCache.close();
+        }
+        closeListenerExecutor();
+        closeTransferExecutor();
+        closeExecutor();
         closeFileSystems();
         closeClients();
     }
@@ -1037,6 +1551,39 @@ public class AliyunOSSFileSystemProvider extends FileSystemProvider implements A
         }
     }
 
+    private void closeTransferExecutor() {
+        if (transferExecutor != null) {
+            try {
+                transferExecutor.shutdownNow();
+                transferExecutor.awaitTermination(3, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+
+    private void closeWatchTimer() {
+        if (watchTimer != null) {
+            watchTimer.close();
+        }
+        if (watchExecutor != null) {
+            try {
+                watchExecutor.shutdownNow();
+                watchExecutor.awaitTermination(3, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+
+    private void closeListenerExecutor() {
+        if (listenerExecutor != null) {
+            try {
+                listenerExecutor.shutdownNow();
+                listenerExecutor.awaitTermination(3, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+
     private void closeWatchService() {
         if (watchService != null) {
             try {
@@ -0,0 +1,237 @@
+package cc.whohow.fs.aliyun;
+
+import cc.whohow.fs.FileRegionInputStream;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地文件分片并发上传，断点续传。
+ * 已完成的分片记录在检查点文件中，中断后再次上传同一文件时从断点继续。
+ */
+public class AliyunOSSFileUploader {
+    private static final long MB = 1024 * 1024;
+
+    private final OSSClient client;
+    private final String bucketName;
+    private final String objectKey;
+    private final File source; // 本地文件
+    private final File checkpoint; // 检查点文件
+    private final int parallelism; // 并发上传分片数
+    private final Executor executor; // 上传线程池
+
+    private final long length; // 文件长度
+    private final long lastModified; // 文件修改时间
+    private final long partSize; // 分片大小
+    private final NavigableMap<Integer, String> partETags = new ConcurrentSkipListMap<>(); // 已完成分片
+    private String uploadId; // 分片上传ID
+
+    public AliyunOSSFileUploader(OSSClient client, String bucketName, String objectKey, File source,
+                                 File checkpointDirectory, int parallelism, Executor executor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.source = source.getAbsoluteFile();
+        this.checkpoint = new File(checkpointDirectory, UUID.nameUUIDFromBytes(
+                (bucketName + "/" + objectKey + "\n" + this.source.getPath()).getBytes(StandardCharsets.UTF_8)) + ".upload");
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.length = this.source.length();
+        this.lastModified = this.source.lastModified();
+        this.partSize = getPartSize(length);
+    }
+
+    /**
+     * 根据文件大小选择分片大小：不小于 8MB，分片数不超过 1000，按 1MB 对齐
+     */
+    public static long getPartSize(long length) {
+        long partSize = Math.max(8 * MB, (length + 999) / 1000);
+        return (partSize + MB - 1) / MB * MB;
+    }
+
+    public File getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * 上传，小文件直接上传，大文件分片上传
+     */
+    public void upload() throws IOException {
+        if (!source.isFile()) {
+            throw new FileNotFoundException(source.getPath());
+        }
+        if (length <= partSize) {
+            client.putObject(bucketName, objectKey, source);
+            return;
+        }
+        boolean resumed = loadCheckpoint();
+        try {
+            uploadParts();
+        } catch (OSSException e) {
+            if (!resumed || !OSSErrorCode.NO_SUCH_UPLOAD.equals(e.getErrorCode())) {
+                throw e;
+            }
+            // 断点已失效，重新上传
+            deleteCheckpoint();
+            uploadId = null;
+            partETags.clear();
+            uploadParts();
+        }
+    }
+
+    private void uploadParts() throws IOException {
+        if (uploadId == null) {
+            uploadId = client.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, objectKey)).getUploadId();
+            saveCheckpoint();
+        }
+        int partCount = (int) ((length + partSize - 1) / partSize);
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            // 每个线程依次领取未完成的分片
+            AtomicInteger next = new AtomicInteger(1);
+            List<CompletableFuture<Void>> workers = new ArrayList<>(parallelism);
+            for (int i = 0; i < Math.min(parallelism, partCount); i++) {
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int partNumber = next.getAndIncrement(); partNumber <= partCount; partNumber = next.getAndIncrement()) {
+                        if (!partETags.containsKey(partNumber)) {
+                            uploadPart(channel, partNumber);
+                        }
+                    }
+                }, executor).whenComplete((r, e) -> {
+                    if (e != null) {
+                        // 失败后其他线程不再领取新分片
+                        next.set(partCount + 1);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        List<PartETag> list = new ArrayList<>(partETags.size());
+        for (Map.Entry<Integer, String> e : partETags.entrySet()) {
+            list.add(new PartETag(e.getKey(), e.getValue()));
+        }
+        client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, list));
+        deleteCheckpoint();
+    }
+
+    private void uploadPart(FileChannel channel, int partNumber) {
+        long position = (partNumber - 1) * partSize;
+        long size = Math.min(partSize, length - position);
+        UploadPartRequest uploadPartRequest = new UploadPartRequest();
+        uploadPartRequest.setBucketName(bucketName);
+        uploadPartRequest.setKey(objectKey);
+        uploadPartRequest.setUploadId(uploadId);
+        uploadPartRequest.setPartNumber(partNumber);
+        uploadPartRequest.setInputStream(new FileRegionInputStream(channel, position, size));
+        uploadPartRequest.setPartSize(size);
+        partETags.put(partNumber, client.uploadPart(uploadPartRequest).getPartETag().getETag());
+        try {
+            saveCheckpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取检查点，文件或目标已变化时丢弃
+     *
+     * @return 是否从断点继续
+     */
+    private boolean loadCheckpoint() {
+        if (!checkpoint.isFile()) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(checkpoint)) {
+            properties.load(stream);
+        } catch (IOException e) {
+            deleteCheckpoint();
+            return false;
+        }
+        if (!source.getPath().equals(properties.getProperty("file"))
+                || !bucketName.equals(properties.getProperty("bucketName"))
+                || !objectKey.equals(properties.getProperty("objectKey"))
+                || !String.valueOf(length).equals(properties.getProperty("length"))
+                || !String.valueOf(lastModified).equals(properties.getProperty("lastModified"))
+                || !String.valueOf(partSize).equals(properties.getProperty("partSize"))
+                || properties.getProperty("uploadId") == null) {
+            // 文件已修改，放弃旧的分片上传
+            String staleUploadId = properties.getProperty("uploadId");
+            if (staleUploadId != null && bucketName.equals(properties.getProperty("bucketName"))
+                    && objectKey.equals(properties.getProperty("objectKey"))) {
+                try {
+                    client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, staleUploadId));
+                } catch (Throwable ignore) {
+                }
+            }
+            deleteCheckpoint();
+            return false;
+        }
+        uploadId = properties.getProperty("uploadId");
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("part.")) {
+                partETags.put(Integer.parseInt(name.substring(5)), properties.getProperty(name));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 保存检查点，先写临时文件再替换，避免中断时损坏
+     */
+    private synchronized void saveCheckpoint() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("file", source.getPath());
+        properties.setProperty("bucketName", bucketName);
+        properties.setProperty("objectKey", objectKey);
+        properties.setProperty("length", String.valueOf(length));
+        properties.setProperty("lastModified", String.valueOf(lastModified));
+        properties.setProperty("partSize", String.valueOf(partSize));
+        properties.setProperty("uploadId", uploadId);
+        for (Map.Entry<Integer, String> e : partETags.entrySet()) {
+            properties.setProperty("part." + e.getKey(), e.getValue());
+        }
+        File directory = checkpoint.getParentFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File temp = new File(directory, checkpoint.getName() + ".tmp");
+        try (OutputStream stream = new FileOutputStream(temp)) {
+            properties.store(stream, null);
+        }
+        Files.move(temp.toPath(), checkpoint.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpoint.exists() && !checkpoint.delete()) {
+            checkpoint.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package cc.whohow.fs.aliyun;
+
+import cc.whohow.fs.HashedWheelTimer;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.OSSObjectSummary;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 文件监听合并轮询协调器。按父目录分组，组内监听器数量达到阈值后以一次目录遍历代替逐个文件HEAD请求；各组首次轮询时间随机错开。
+ * 目录文件过多而改为逐个HEAD时，每隔PROBE_ROUNDS轮重新遍历一次目录，目录文件减少后恢复目录遍历。
+ * 各组由定时器调度，在定时器的执行线程池（监听轮询线程池）中轮询，不占用公共调度线程。
+ */
+public class AliyunOSSFileWatchCoordinator implements AutoCloseable {
+    private static final int MAX_KEYS = 1000;
+    private static final int PROBE_ROUNDS = 10;
+
+    private final HashedWheelTimer timer;
+    private final long interval; // 轮询间隔（毫秒）
+    private final int groupThreshold; // 改为目录遍历的组内监听器数量
+    private final Map<String, Group> groups = new ConcurrentHashMap<>(); // 父目录URI -> 分组
+
+    public AliyunOSSFileWatchCoordinator(HashedWheelTimer timer, long interval, TimeUnit unit) {
+        this(timer, interval, unit, 16);
+    }
+
+    public AliyunOSSFileWatchCoordinator(HashedWheelTimer timer, long interval, TimeUnit unit, int groupThreshold) {
+        if (interval <= 0 || groupThreshold < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.timer = timer;
+        this.interval = unit.toMillis(interval);
+        this.groupThreshold = groupThreshold;
+    }
+
+    /**
+     * 加入监听器
+     */
+    public synchronized void register(AliyunOSSFileWatcher watcher) {
+        String parent = watcher.watchable().getParent();
+        if (parent == null) {
+            throw new IllegalArgumentException();
+        }
+        groups.computeIfAbsent(parent, Group::new).add(watcher);
+    }
+
+    /**
+     * 移除监听器，分组为空时停止轮询
+     */
+    public synchronized void unregister(AliyunOSSFileWatcher watcher) {
+        String parent = watcher.watchable().getParent();
+        Group group = parent == null ? null : groups.get(parent);
+        if (group != null && group.remove(watcher) && group.isEmpty()) {
+            groups.remove(parent, group);
+            group.close();
+        }
+    }
+
+    /**
+     * 分组数
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Group group : groups.values()) {
+            group.close();
+        }
+        groups.clear();
+    }
+
+    /**
+     * 同一父目录下的监听器
+     */
+    private class Group implements Runnable {
+        private final AliyunOSSFile directory; // 父目录，用于目录遍历
+        private final Map<String, List<AliyunOSSFileWatcher>> watchers = new ConcurrentHashMap<>(); // ObjectKey -> 监听器
+        private HashedWheelTimer.Timeout timeout; // 下次轮询
+        private boolean closed;
+        private volatile long listedCount = -1; // 上次遍历对象数，-1为未遍历
+        private int headRounds; // 上次遍历后逐个HEAD的轮数，仅轮询线程访问
+
+        Group(String uri) {
+            this.directory = new AliyunOSSFile(URI.create(uri));
+            schedule(ThreadLocalRandom.current().nextLong(interval));
+        }
+
+        synchronized void schedule(long delay) {
+            if (!closed) {
+                timeout = timer.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void add(AliyunOSSFileWatcher watcher) {
+            watchers.computeIfAbsent(watcher.watchable().getObjectKey(), self -> new CopyOnWriteArrayList<>()).add(watcher);
+        }
+
+        boolean remove(AliyunOSSFileWatcher watcher) {
+            String objectKey = watcher.watchable().getObjectKey();
+            List<AliyunOSSFileWatcher> list = watchers.get(objectKey);
+            if (list == null || !list.remove(watcher)) {
+                return false;
+            }
+            if (list.isEmpty()) {
+                watchers.remove(objectKey, list);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return watchers.isEmpty();
+        }
+
+        int size() {
+            int n = 0;
+            for (List<AliyunOSSFileWatcher> list : watchers.values()) {
+                n += list.size();
+            }
+            return n;
+        }
+
+        /**
+         * 目录遍历分页数少于监听器数量时才遍历目录，否则逐个HEAD，每PROBE_ROUNDS轮重新遍历一次
+         */
+        boolean shouldList() {
+            int size = size();
+            if (size < groupThreshold) {
+                return false;
+            }
+            if (listedCount >= 0 && (listedCount + MAX_KEYS - 1) / MAX_KEYS >= size && ++headRounds < PROBE_ROUNDS) {
+                return false;
+            }
+            headRounds = 0;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                poll();
+            } finally {
+                schedule(interval);
+            }
+        }
+
+        private void poll() {
+            if (!shouldList()) {
+                for (List<AliyunOSSFileWatcher> list : watchers.values()) {
+                    for (AliyunOSSFileWatcher watcher : list) {
+                        try {
+                            watcher.run();
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                }
+                return;
+            }
+            Map<String, String> eTags = new HashMap<>();
+            try {
+                long count = 0;
+                Iterator<OSSObjectSummary> iterator = new AliyunOSSObjectSummaryIterator(directory.getClient(),
+                        new ListObjectsRequest(directory.getBucketName(), directory.getObjectKey(), null, "/", MAX_KEYS));
+                while (iterator.hasNext()) {
+                    OSSObjectSummary objectSummary = iterator.next();
+                    if (watchers.containsKey(objectSummary.getKey())) {
+                        eTags.put(objectSummary.getKey(), objectSummary.getETag());
+                    }
+                    count++;
+                }
+                listedCount = count;
+            } catch (Throwable e) {
+                // 遍历失败，跳过本轮
+                return;
+            }
+            for (Map.Entry<String, List<AliyunOSSFileWatcher>> e : watchers.entrySet()) {
+                String eTag = eTags.get(e.getKey());
+                for (AliyunOSSFileWatcher watcher : e.getValue()) {
+                    try {
+                        if (!watcher.testStopCondition()) {
+                            watcher.update(eTag);
+                        }
+                    } catch (Throwable ignore) {
+                    }
+                }
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            directory.close();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.nio.file.WatchEvent;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
@@ -26,7 +27,8 @@ public class AliyunOSSFileWatcher implements Runnable {
     private volatile long startTime; // 开始时间
     private final AtomicInteger runningCounter = new AtomicInteger(0); // 监听次数
 
-    private volatile SimplifiedObjectMeta objectMeta; // 文件元数据
+    private volatile AliyunOSSFileWatchCoordinator coordinator; // 合并轮询协调器
+    private volatile String eTag; // 文件ETag，null为文件不存在
 
     public AliyunOSSFileWatcher(AliyunOSSFile file, BiFunction<WatchEvent.Kind<?>, AliyunOSSFileWatcher, Boolean> listener) {
         this.file = file;
@@ -74,48 +76,82 @@ public class AliyunOSSFileWatcher implements Runnable {
     }
 
     /**
-     * 开始
+     * 开始，单独轮询，首次轮询时间随机错开
      */
     public AliyunOSSFileWatcher start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+        init();
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(1, unit.toMillis(interval)));
+        this.future = executor.scheduleWithFixedDelay(this, delay, unit.toMillis(interval), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 开始，由协调器按父目录合并轮询
+     */
+    public AliyunOSSFileWatcher start(AliyunOSSFileWatchCoordinator coordinator) {
+        init();
+        this.coordinator = coordinator;
+        coordinator.register(this);
+        return this;
+    }
+
+    private void init() {
         if (this.stopCondition == null) {
             this.stopCondition = (watcher) -> false;
         }
-
-        this.objectMeta = getObjectMeta();
+        this.eTag = getETag();
         this.startTime = System.currentTimeMillis();
-        this.future = executor.scheduleWithFixedDelay(this, 0, interval, unit);
-        return this;
     }
 
     /**
      * 停止
      */
     public AliyunOSSFileWatcher stop() {
-        this.future.cancel(true);
+        if (future != null) {
+            future.cancel(true);
+        }
+        if (coordinator != null) {
+            coordinator.unregister(this);
+        }
         return this;
     }
 
     @Override
     public void run() {
+        if (!testStopCondition()) {
+            update(getETag());
+        }
+    }
+
+    /**
+     * 满足停止条件时停止，返回true
+     */
+    boolean testStopCondition() {
         if (stopCondition.test(this)) {
             stopAndClose();
-            return;
+            return true;
         }
+        return false;
+    }
 
+    /**
+     * 以最新ETag（null为文件不存在）更新状态，触发事件
+     */
+    void update(String currETag) {
         runningCounter.getAndIncrement();
 
-        SimplifiedObjectMeta prevObjectMeta = objectMeta;
-        objectMeta = getObjectMeta();
-        if (prevObjectMeta == null && objectMeta != null) {
+        String prevETag = eTag;
+        eTag = currETag;
+        if (prevETag == null && currETag != null) {
             if(Boolean.FALSE.equals(listener.apply(StandardWatchEventKinds.ENTRY_CREATE, this))) {
                 stopAndClose();
             }
-        } else if (prevObjectMeta != null && objectMeta == null) {
+        } else if (prevETag != null && currETag == null) {
             if (Boolean.FALSE.equals(listener.apply(StandardWatchEventKinds.ENTRY_DELETE, this))) {
                 stopAndClose();
             }
-        } else if (prevObjectMeta != null && objectMeta != null) {
-            if (!Objects.equals(prevObjectMeta.getETag(), objectMeta.getETag())) {
+        } else if (prevETag != null) {
+            if (!Objects.equals(prevETag, currETag)) {
                 if (Boolean.FALSE.equals(listener.apply(StandardWatchEventKinds.ENTRY_MODIFY, this))) {
                     stopAndClose();
                 }
@@ -137,9 +173,10 @@ public class AliyunOSSFileWatcher implements Runnable {
         return runningCounter.get();
     }
 
-    private SimplifiedObjectMeta getObjectMeta() {
+    private String getETag() {
         try {
-            return file.getObjectMeta();
+            SimplifiedObjectMeta objectMeta = file.getObjectMeta();
+            return objectMeta == null ? null : objectMeta.getETag();
         } catch (OSSException e) {
             if (OSSErrorCode.NO_SUCH_BUCKET.equals(e.getErrorCode())
                     ||OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
@@ -0,0 +1,266 @@
+package cc.whohow.fs.aliyun;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于HTTP的OSS事件通知接收器。接收OSS事件通知（经MNS HTTP推送，消息体为XML或JSON，可Base64编码），
+ * ObjectCreated转换为ENTRY_CREATE，ObjectRemoved转换为ENTRY_DELETE，其他事件忽略。
+ * 推送地址需携带令牌（如http://host:port/path?token=xxx），令牌不符的请求返回403。
+ */
+public class AliyunOSSHttpChangeSource implements AliyunOSSChangeSource {
+    private static final Pattern XML_MESSAGE = Pattern.compile("<Message>(.*?)</Message>", Pattern.DOTALL);
+    private static final Pattern JSON_MESSAGE = Pattern.compile("\"Message\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern EVENT_NAME = Pattern.compile("\"eventName\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern BUCKET_NAME = Pattern.compile("\"bucket\"\\s*:\\s*\\{[^{}]*?\"name\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern OBJECT_KEY = Pattern.compile("\"object\"\\s*:\\s*\\{[^{}]*?\"key\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private final InetSocketAddress address; // 监听地址
+    private final String path; // 接收路径
+    private final byte[] token; // 令牌
+    private volatile HttpServer server;
+
+    public AliyunOSSHttpChangeSource(InetSocketAddress address, String path, String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("token");
+        }
+        this.address = address;
+        this.path = path;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 实际监听地址（端口为0时由系统分配）
+     */
+    public InetSocketAddress getAddress() {
+        return server == null ? address : server.getAddress();
+    }
+
+    @Override
+    public synchronized void start(Consumer<List<AliyunOSSChange>> consumer) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException();
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext(path, exchange -> handle(exchange, consumer));
+        server.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Consumer<List<AliyunOSSChange>> consumer) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!authorized(exchange.getRequestURI().getRawQuery())) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            List<AliyunOSSChange> changes;
+            try (InputStream stream = exchange.getRequestBody()) {
+                changes = parse(new String(readAll(stream), StandardCharsets.UTF_8));
+            }
+            if (!changes.isEmpty()) {
+                consumer.accept(changes);
+            }
+            exchange.sendResponseHeaders(204, -1);
+        } catch (RuntimeException e) {
+            // 返回错误，由推送方重试
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 校验查询参数中的令牌，按固定时间比较
+     */
+    private boolean authorized(String query) {
+        if (query == null) {
+            return false;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("token=")) {
+                try {
+                    byte[] value = URLDecoder.decode(parameter.substring(6), "UTF-8").getBytes(StandardCharsets.UTF_8);
+                    if (MessageDigest.isEqual(value, token)) {
+                        return true;
+                    }
+                } catch (UnsupportedEncodingException | IllegalArgumentException ignore) {
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析事件通知
+     */
+    public static List<AliyunOSSChange> parse(String body) {
+        String message = body.trim();
+        Matcher matcher = XML_MESSAGE.matcher(message);
+        if (matcher.find()) {
+            message = unescapeXml(matcher.group(1)).trim();
+        } else if (!message.contains("\"events\"")) {
+            matcher = JSON_MESSAGE.matcher(message);
+            if (matcher.find()) {
+                message = unescapeJson(matcher.group(1)).trim();
+            }
+        }
+        if (!message.startsWith("{")) {
+            try {
+                message = new String(Base64.getDecoder().decode(message), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<AliyunOSSChange> changes = new ArrayList<>();
+        Matcher eventName = EVENT_NAME.matcher(message);
+        int begin = eventName.find() ? eventName.start() : -1;
+        while (begin >= 0) {
+            String name = eventName.group(1);
+            int end = eventName.find() ? eventName.start() : message.length();
+            String event = message.substring(begin, end);
+            WatchEvent.Kind<Path> kind = toKind(name);
+            Matcher bucketName = BUCKET_NAME.matcher(event);
+            Matcher objectKey = OBJECT_KEY.matcher(event);
+            if (kind != null && bucketName.find() && objectKey.find()) {
+                changes.add(new AliyunOSSChange(kind,
+                        unescapeJson(bucketName.group(1)), decodeKey(unescapeJson(objectKey.group(1)))));
+            }
+            begin = end < message.length() ? end : -1;
+        }
+        return changes;
+    }
+
+    private static WatchEvent.Kind<Path> toKind(String eventName) {
+        if (eventName.startsWith("ObjectCreated:")) {
+            return StandardWatchEventKinds.ENTRY_CREATE;
+        }
+        if (eventName.startsWith("ObjectRemoved:")) {
+            return StandardWatchEventKinds.ENTRY_DELETE;
+        }
+        return null;
+    }
+
+    /**
+     * 事件通知中的Key经过URL编码（%XX）
+     */
+    private static String decodeKey(String key) {
+        if (key.indexOf('%') < 0) {
+            return key;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '%' && i + 2 < key.length()
+                    && Character.digit(key.charAt(i + 1), 16) >= 0 && Character.digit(key.charAt(i + 2), 16) >= 0) {
+                buffer.write(Character.digit(key.charAt(i + 1), 16) * 16 + Character.digit(key.charAt(i + 2), 16));
+                i += 2;
+            } else {
+                byte[] bytes = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                buffer.write(bytes, 0, bytes.length);
+            }
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String unescapeJson(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder buffer = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 >= s.length()) {
+                buffer.append(c);
+                continue;
+            }
+            char e = s.charAt(++i);
+            switch (e) {
+                case 'n':
+                    buffer.append('\n');
+                    break;
+                case 't':
+                    buffer.append('\t');
+                    break;
+                case 'r':
+                    buffer.append('\r');
+                    break;
+                case 'b':
+                    buffer.append('\b');
+                    break;
+                case 'f':
+                    buffer.append('\f');
+                    break;
+                case 'u':
+                    int code = i + 4 < s.length() ? parseHex(s, i + 1, i + 5) : -1;
+                    if (code >= 0) {
+                        buffer.append((char) code);
+                        i += 4;
+                    } else {
+                        // 不完整的转义，保留原文
+                        buffer.append('\\').append(e);
+                    }
+                    break;
+                default:
+                    buffer.append(e);
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static int parseHex(String s, int begin, int end) {
+        int value = 0;
+        for (int i = begin; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    private static String unescapeXml(String s) {
+        return s.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] bytes = new byte[8192];
+        for (int n = stream.read(bytes); n >= 0; n = stream.read(bytes)) {
+            buffer.write(bytes, 0, n);
+        }
+        return buffer.toByteArray();
+    }
+}
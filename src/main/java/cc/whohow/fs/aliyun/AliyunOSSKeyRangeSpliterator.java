@@ -0,0 +1,200 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.ObjectListing;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 按Key范围拆分的OSS对象递归遍历器，适用于没有目录结构的大量平铺对象（如UUID文件名）。
+ * 首次拆分时以少量Marker探测请求采样Key分布，选出分割点，每段范围(begin, end]用各自的Marker并行遍历。
+ * 保持字典序。关闭时关闭所有拆分出的遍历器正在使用的对象遍历器。
+ */
+public class AliyunOSSKeyRangeSpliterator implements Spliterator<OSSObjectSummary>, AutoCloseable {
+    private static final int BASE = 95; // 采样空间：可见ASCII字符 0x20-0x7E
+    private static final int DIGITS = 8; // 采样空间：前缀后前8个字符
+    private static final long MAX = pow(BASE, DIGITS) - 1;
+
+    private final AliyunOSSFileSystemProvider fileSystemProvider;
+    private final OSSClient client;
+    private final String bucketName;
+    private final String prefix;
+    private final int partitions; // 期望分段数
+    private String begin; // 起始Marker（不含），null为从头开始
+    private final String end; // 结束Key（含），null为到末尾
+    private List<String> splitPoints; // 范围内分割点，null为未采样
+    private AliyunOSSObjectSummaryIterator current; // 当前遍历
+    private final Set<AliyunOSSObjectSummaryIterator> opened; // 与拆分出的遍历器共享，未遍历完的对象遍历器
+    private boolean finished;
+
+    public AliyunOSSKeyRangeSpliterator(AliyunOSSFileSystemProvider fileSystemProvider,
+                                        OSSClient client, String bucketName, String prefix, int partitions) {
+        this(fileSystemProvider, client, bucketName, prefix, partitions, null, null, null,
+                ConcurrentHashMap.newKeySet());
+    }
+
+    private AliyunOSSKeyRangeSpliterator(AliyunOSSFileSystemProvider fileSystemProvider,
+                                         OSSClient client, String bucketName, String prefix, int partitions,
+                                         String begin, String end, List<String> splitPoints,
+                                         Set<AliyunOSSObjectSummaryIterator> opened) {
+        this.fileSystemProvider = fileSystemProvider;
+        this.client = client;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+        this.partitions = partitions;
+        this.begin = begin;
+        this.end = end;
+        this.splitPoints = splitPoints;
+        this.opened = opened;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OSSObjectSummary> action) {
+        if (finished) {
+            return false;
+        }
+        if (current == null) {
+            current = fileSystemProvider.newObjectSummaryIterator(client, bucketName, prefix, begin, end, null);
+            opened.add(current);
+        }
+        if (current.hasNext()) {
+            OSSObjectSummary objectSummary = current.next();
+            // 采样分割点均为ASCII字符，String.compareTo与OSS字节序一致
+            if (end == null || objectSummary.getKey().compareTo(end) <= 0) {
+                action.accept(objectSummary);
+                return true;
+            }
+        }
+        // 遍历完成或超出范围，取消范围外的预取
+        finished = true;
+        current.close();
+        opened.remove(current);
+        current = null;
+        return false;
+    }
+
+    @Override
+    public Spliterator<OSSObjectSummary> trySplit() {
+        if (current != null || finished) {
+            // 已开始遍历
+            return null;
+        }
+        if (splitPoints == null) {
+            splitPoints = sample(client, bucketName, prefix, partitions);
+        }
+        if (splitPoints.isEmpty()) {
+            return null;
+        }
+        // 拆出前半段，保持顺序
+        int mid = splitPoints.size() / 2;
+        String splitPoint = splitPoints.get(mid);
+        AliyunOSSKeyRangeSpliterator split = new AliyunOSSKeyRangeSpliterator(fileSystemProvider,
+                client, bucketName, prefix, partitions, begin, splitPoint, splitPoints.subList(0, mid), opened);
+        begin = splitPoint;
+        splitPoints = splitPoints.subList(mid + 1, splitPoints.size());
+        return split;
+    }
+
+    @Override
+    public void close() {
+        for (AliyunOSSObjectSummaryIterator iterator : opened) {
+            iterator.close();
+        }
+        opened.clear();
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * 采样Key分布，返回有序分割点。
+     * 将前缀后的Key映射到数值空间，每次对最宽的区间取中点作为Marker探测（maxKeys=1），
+     * 中点后有Key则作为分割点，否则缩小区间上界。探测次数不超过分段数的2倍。
+     */
+    public static List<String> sample(OSSClient client, String bucketName, String prefix, int partitions) {
+        String first = probe(client, bucketName, prefix, null);
+        if (first == null || partitions < 2) {
+            return Collections.emptyList();
+        }
+        int offset = prefix == null ? 0 : prefix.length();
+        NavigableSet<Long> points = new TreeSet<>();
+        // 待探测区间[low, high]，low为已知Key位置，按宽度倒序
+        PriorityQueue<long[]> intervals = new PriorityQueue<>(
+                Comparator.comparingLong((long[] self) -> self[1] - self[0]).reversed());
+        intervals.add(new long[]{toNumber(first, offset), MAX});
+        for (int probes = 0; points.size() < partitions - 1 && probes < 2 * partitions && !intervals.isEmpty(); probes++) {
+            long[] interval = intervals.poll();
+            long low = interval[0];
+            long high = interval[1];
+            if (high - low < 2) {
+                continue;
+            }
+            long mid = low + (high - low) / 2;
+            String key = probe(client, bucketName, prefix, toMarker(prefix, mid));
+            long position = key == null ? MAX + 1 : toNumber(key, offset);
+            if (position > high) {
+                // 中点后至上界没有Key
+                intervals.add(new long[]{low, mid});
+            } else {
+                points.add(mid);
+                intervals.add(new long[]{low, mid});
+                intervals.add(new long[]{Math.max(position, mid), high});
+            }
+        }
+        List<String> splitPoints = new ArrayList<>(points.size());
+        for (long point : points) {
+            splitPoints.add(toMarker(prefix, point));
+        }
+        return splitPoints;
+    }
+
+    /**
+     * 探测Marker后第一个Key
+     */
+    private static String probe(OSSClient client, String bucketName, String prefix, String marker) {
+        ObjectListing objectListing = client.listObjects(new ListObjectsRequest(bucketName, prefix, marker, null, 1));
+        List<OSSObjectSummary> objectSummaries = objectListing.getObjectSummaries();
+        return objectSummaries.isEmpty() ? null : objectSummaries.get(0).getKey();
+    }
+
+    private static long toNumber(String key, int offset) {
+        long n = 0;
+        for (int i = 0; i < DIGITS; i++) {
+            int c = offset + i < key.length() ? Math.max(0x20, Math.min(0x7E, key.charAt(offset + i))) - 0x20 : 0;
+            n = n * BASE + c;
+        }
+        return n;
+    }
+
+    private static String toMarker(String prefix, long n) {
+        char[] chars = new char[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            chars[i] = (char) (0x20 + n % BASE);
+            n /= BASE;
+        }
+        int length = DIGITS;
+        while (length > 1 && chars[length - 1] == 0x20) {
+            length--;
+        }
+        return (prefix == null ? "" : prefix) + new String(chars, 0, length);
+    }
+
+    private static long pow(long base, int exponent) {
+        long n = 1;
+        for (int i = 0; i < exponent; i++) {
+            n *= base;
+        }
+        return n;
+    }
+}
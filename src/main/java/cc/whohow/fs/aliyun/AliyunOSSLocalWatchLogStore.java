@@ -0,0 +1,100 @@
+package cc.whohow.fs.aliyun;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于本地目录的集群监听共享存储，以文件锁（进程间）及同步（进程内）保证追加写入互斥，用于单机多进程部署或测试
+ */
+public class AliyunOSSLocalWatchLogStore implements AliyunOSSWatchLogStore {
+    private final File directory;
+
+    public AliyunOSSLocalWatchLogStore(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized long append(String name, long position, byte[] data) throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, name);
+        if (position > 0 && !file.exists()) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            if (channel.size() != position) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long p = position;
+            while (buffer.hasRemaining()) {
+                p += channel.write(buffer, p);
+            }
+            channel.force(false);
+            return p;
+        }
+    }
+
+    @Override
+    public long length(String name) throws IOException {
+        File file = new File(directory, name);
+        return file.isFile() ? file.length() : -1;
+    }
+
+    @Override
+    public byte[] read(String name, long position, int maxLength) throws IOException {
+        File file = new File(directory, name);
+        if (!file.isFile()) {
+            return new byte[0];
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length <= position) {
+                return new byte[0];
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(maxLength, length - position));
+            long p = position;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, p);
+                if (n < 0) {
+                    break;
+                }
+                p += n;
+            }
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        List<String> names = new ArrayList<>();
+        String[] files = directory.list();
+        if (files != null) {
+            for (String name : files) {
+                if (name.startsWith(prefix)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public synchronized void delete(String name) throws IOException {
+        File file = new File(directory, name);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("DeleteFailed: " + file);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * 分片上传输出流。写满一个分片后在后台上传，关闭时完成上传，出错时取消上传。
+ * 数据不足一个分片时，关闭时直接上传。
+ */
+public class AliyunOSSMultipartOutputStream extends OutputStream {
+    public static final int MIN_PART_SIZE = 100 * 1024; // 最小分片大小（最后一个分片除外）
+    public static final int MAX_PART_COUNT = 10000; // 最大分片数
+
+    private final OSSClient client;
+    private final String bucketName;
+    private final String objectKey;
+    private final int partSize; // 分片大小
+    private final Executor executor; // 上传线程池
+    private final Semaphore permits; // 并发上传分片数
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>(); // 可复用缓冲区
+    private final List<CompletableFuture<PartETag>> parts = new ArrayList<>(); // 已提交分片
+
+    private byte[] buffer; // 当前分片缓冲区
+    private int count; // 当前分片已写入字节数
+    private String uploadId; // 分片上传ID，首个分片写满时初始化
+    private volatile Throwable error; // 后台上传异常
+    private boolean closed;
+
+    public AliyunOSSMultipartOutputStream(OSSClient client, String bucketName, String objectKey,
+                                          int partSize, int parallelism, Executor executor) {
+        if (partSize < MIN_PART_SIZE || parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.partSize = partSize;
+        this.executor = executor;
+        this.permits = new Semaphore(parallelism);
+        this.buffer = new byte[partSize];
+        this.count = 0;
+    }
+
+    public OSSClient getClient() {
+        return client;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte) b;
+        if (count == partSize) {
+            uploadPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = Math.min(len, partSize - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == partSize) {
+                uploadPart();
+            }
+        }
+    }
+
+    /**
+     * 分片需达到最小分片大小，flush不上传不完整分片
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        checkError();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uploadId == null) {
+                // 不足一个分片，直接上传
+                client.putObject(bucketName, objectKey, new ByteArrayInputStream(buffer, 0, count));
+                return;
+            }
+            if (count > 0) {
+                uploadPart();
+            }
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (CompletableFuture<PartETag> part : parts) {
+                partETags.add(part.join());
+            }
+            client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partETags));
+        } catch (IOException e) {
+            abort();
+            throw e;
+        } catch (CompletionException e) {
+            abort();
+            throw new IOException(e.getCause());
+        } catch (RuntimeException e) {
+            abort();
+            throw new IOException(e);
+        } finally {
+            buffer = null;
+            buffers.clear();
+        }
+    }
+
+    /**
+     * 提交当前分片，并发数达到上限时阻塞
+     */
+    private void uploadPart() throws IOException {
+        checkError();
+        if (parts.size() >= MAX_PART_COUNT) {
+            throw abortWith(new IOException("TooManyParts"));
+        }
+        try {
+            if (uploadId == null) {
+                uploadId = client.initiateMultipartUpload(
+                        new InitiateMultipartUploadRequest(bucketName, objectKey)).getUploadId();
+            }
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abortWith(new InterruptedIOException());
+        } catch (RuntimeException e) {
+            throw abortWith(new IOException(e));
+        }
+        byte[] data = buffer;
+        int length = count;
+        int partNumber = parts.size() + 1;
+        parts.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                UploadPartRequest uploadPartRequest = new UploadPartRequest();
+                uploadPartRequest.setBucketName(bucketName);
+                uploadPartRequest.setKey(objectKey);
+                uploadPartRequest.setUploadId(uploadId);
+                uploadPartRequest.setPartNumber(partNumber);
+                uploadPartRequest.setInputStream(new ByteArrayInputStream(data, 0, length));
+                uploadPartRequest.setPartSize(length);
+                return client.uploadPart(uploadPartRequest).getPartETag();
+            } finally {
+                buffers.offer(data);
+                permits.release();
+            }
+        }, executor).whenComplete((partETag, e) -> {
+            if (e != null) {
+                error = e;
+            }
+        }));
+        byte[] next = buffers.poll();
+        buffer = next == null ? new byte[partSize] : next;
+        count = 0;
+    }
+
+    /**
+     * 取消分片上传
+     */
+    private void abort() {
+        if (uploadId != null) {
+            try {
+                client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+            } catch (Throwable ignore) {
+            }
+        }
+    }
+
+    private IOException abortWith(IOException e) {
+        closed = true;
+        abort();
+        return e;
+    }
+
+    private void checkError() throws IOException {
+        Throwable e = error;
+        if (e != null) {
+            throw abortWith(new IOException(e instanceof CompletionException ? e.getCause() : e));
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("StreamClosed");
+        }
+    }
+}
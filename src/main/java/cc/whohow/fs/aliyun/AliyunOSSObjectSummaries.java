@@ -0,0 +1,56 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.OSSObjectSummary;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 递归遍历目录下所有对象，顺序遍历按字典序，并行遍历按子目录或采样Key范围拆分。
+ * 提前结束遍历时需关闭stream()返回的流，取消未完成的预取
+ */
+public class AliyunOSSObjectSummaries implements Iterable<OSSObjectSummary> {
+    private final AliyunOSSFileSystemProvider fileSystemProvider;
+    private final OSSClient client;
+    private final String bucketName;
+    private final String prefix;
+
+    public AliyunOSSObjectSummaries(AliyunOSSFileSystemProvider fileSystemProvider,
+                                    OSSClient client, String bucketName, String prefix) {
+        this.fileSystemProvider = fileSystemProvider;
+        this.client = client;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Iterator<OSSObjectSummary> iterator() {
+        return fileSystemProvider.newObjectSummaryIterator(client, bucketName, prefix, null);
+    }
+
+    /**
+     * 递归遍历流，关闭时取消所有未完成的预取
+     */
+    public Stream<OSSObjectSummary> stream(boolean parallel) {
+        if ("sampling".equalsIgnoreCase(fileSystemProvider.getListSplitMode())) {
+            AliyunOSSKeyRangeSpliterator spliterator = new AliyunOSSKeyRangeSpliterator(fileSystemProvider,
+                    client, bucketName, prefix, fileSystemProvider.getListPartitions());
+            return StreamSupport.stream(spliterator, parallel).onClose(spliterator::close);
+        }
+        AliyunOSSObjectSummarySpliterator spliterator =
+                new AliyunOSSObjectSummarySpliterator(fileSystemProvider, client, bucketName, prefix);
+        return StreamSupport.stream(spliterator, parallel).onClose(spliterator::close);
+    }
+
+    @Override
+    public Spliterator<OSSObjectSummary> spliterator() {
+        if ("sampling".equalsIgnoreCase(fileSystemProvider.getListSplitMode())) {
+            return new AliyunOSSKeyRangeSpliterator(fileSystemProvider, client, bucketName, prefix,
+                    fileSystemProvider.getListPartitions());
+        }
+        return new AliyunOSSObjectSummarySpliterator(fileSystemProvider, client, bucketName, prefix);
+    }
+}
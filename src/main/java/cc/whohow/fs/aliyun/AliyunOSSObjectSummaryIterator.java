@@ -5,17 +5,27 @@ import com.aliyun.oss.model.ListObjectsRequest;
 import com.aliyun.oss.model.OSSObjectSummary;
 import com.aliyun.oss.model.ObjectListing;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
- * OSS对象遍历器
+ * OSS对象遍历器，可预取后续分页。提前结束遍历时需关闭，取消未完成的预取
  */
-public class AliyunOSSObjectSummaryIterator implements Iterator<OSSObjectSummary> {
+public class AliyunOSSObjectSummaryIterator implements Iterator<OSSObjectSummary>, AutoCloseable {
     private final OSSClient client; // OSS客户端
+    private final int prefetch; // 预取分页数，0为不预取
+    private final Executor executor; // 预取线程池
+    private final String end; // 结束Key（含），分页最后一个Key达到后不再请求后续分页，null为不限
+    private final Deque<CompletableFuture<ObjectListing>> prefetched = new ArrayDeque<>(); // 预取分页，null为没有更多结果
     private volatile ListObjectsRequest listObjectsRequest; // 遍历请求
     private volatile ObjectListing objectListing; // 遍历结果
     private volatile Iterator<OSSObjectSummary> current; // 当前结果
+    private volatile boolean closed;
 
     public AliyunOSSObjectSummaryIterator(OSSClient client, String bucketName, String prefix) {
         this(client, bucketName, prefix, null);
@@ -26,10 +36,35 @@ public class AliyunOSSObjectSummaryIterator implements Iterator<OSSObjectSummary
     }
 
     public AliyunOSSObjectSummaryIterator(OSSClient client, ListObjectsRequest listObjectsRequest) {
+        this(client, listObjectsRequest, 0, null);
+    }
+
+    /**
+     * @param prefetch 预取分页数，当前分页被消费时后台请求后续分页
+     * @param executor 预取线程池
+     */
+    public AliyunOSSObjectSummaryIterator(OSSClient client, ListObjectsRequest listObjectsRequest, int prefetch, Executor executor) {
+        this(client, listObjectsRequest, prefetch, executor, null);
+    }
+
+    /**
+     * @param prefetch 预取分页数，当前分页被消费时后台请求后续分页
+     * @param executor 预取线程池
+     * @param end      结束Key（含），分页最后一个Key达到后不再请求及预取后续分页，null为不限；调用方仍需过滤超出的Key
+     */
+    public AliyunOSSObjectSummaryIterator(OSSClient client, ListObjectsRequest listObjectsRequest, int prefetch, Executor executor,
+                                          String end) {
+        if (prefetch < 0 || (prefetch > 0 && executor == null)) {
+            throw new IllegalArgumentException();
+        }
         this.client = client;
+        this.prefetch = prefetch;
+        this.executor = executor;
+        this.end = end;
         this.listObjectsRequest = listObjectsRequest;
         this.objectListing = client.listObjects(listObjectsRequest);
         this.current = currentIterator();
+        prefetch();
     }
 
     private Iterator<OSSObjectSummary> currentIterator() {
@@ -49,25 +84,87 @@ public class AliyunOSSObjectSummaryIterator implements Iterator<OSSObjectSummary
                 .iterator();
     }
 
+    /**
+     * 后台预取后续分页，每个分页依赖上一分页的NextMarker
+     */
+    private void prefetch() {
+        while (!closed && prefetched.size() < prefetch) {
+            CompletableFuture<ObjectListing> last = prefetched.isEmpty() ?
+                    CompletableFuture.completedFuture(objectListing) : prefetched.peekLast();
+            if (last.isDone() && !last.isCompletedExceptionally() && last.join() == null) {
+                return;
+            }
+            prefetched.offer(last.thenApplyAsync(self -> self == null || !hasNextPage(self) ?
+                    null : client.listObjects(nextListObjectsRequest(self.getNextMarker())), executor));
+        }
+    }
+
+    /**
+     * 是否有后续分页：有NextMarker且未达到结束Key
+     */
+    private boolean hasNextPage(ObjectListing objectListing) {
+        String nextMarker = objectListing.getNextMarker();
+        return nextMarker != null && (end == null || nextMarker.compareTo(end) < 0);
+    }
+
+    private ListObjectsRequest nextListObjectsRequest(String marker) {
+        ListObjectsRequest request = new ListObjectsRequest(listObjectsRequest.getBucketName(),
+                listObjectsRequest.getPrefix(), marker, listObjectsRequest.getDelimiter(), listObjectsRequest.getMaxKeys());
+        request.setEncodingType(listObjectsRequest.getEncodingType());
+        return request;
+    }
+
+    /**
+     * 获取下一分页，没有更多结果返回null
+     */
+    private ObjectListing nextObjectListing() {
+        if (closed || !hasNextPage(objectListing)) {
+            return null;
+        }
+        if (prefetch == 0) {
+            listObjectsRequest.setMarker(objectListing.getNextMarker());
+            return client.listObjects(listObjectsRequest);
+        }
+        try {
+            return prefetched.poll().join();
+        } catch (CompletionException e) {
+            prefetched.clear();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     @Override
     public boolean hasNext() {
-        // 首先检查当前请求结果
-        if (current.hasNext()) {
-            return true;
+        // 首先检查当前请求结果，为空时继续请求下一分页
+        while (!current.hasNext()) {
+            ObjectListing next = nextObjectListing();
+            if (next == null) {
+                return false;
+            }
+            objectListing = next;
+            current = currentIterator();
+            prefetch();
         }
-        // 是否有更多解结果，需要再次请求OSS
-        if (objectListing.getNextMarker() == null) {
-            return false;
-        }
-        // 请求OSS，获取下一批数据
-        listObjectsRequest.setMarker(objectListing.getNextMarker());
-        objectListing = client.listObjects(listObjectsRequest);
-        current = currentIterator();
-        return current.hasNext();
+        return true;
     }
 
     @Override
     public OSSObjectSummary next() {
         return current.next();
     }
-}
\ No newline at end of file
+
+    /**
+     * 取消未完成的预取，之后不再请求后续分页
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (CompletableFuture<ObjectListing> future : prefetched) {
+            future.cancel(false);
+        }
+        prefetched.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.ObjectListing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 可拆分的OSS对象递归遍历器。拆分时按分隔符遍历一页，发现子目录（公共前缀），子目录分给不同遍历器并行遍历。
+ * 不保证遍历顺序。关闭时关闭所有拆分出的遍历器正在使用的对象遍历器。
+ */
+public class AliyunOSSObjectSummarySpliterator implements Spliterator<OSSObjectSummary>, AutoCloseable {
+    private static final String DELIMITER = "/";
+
+    private final AliyunOSSFileSystemProvider fileSystemProvider;
+    private final OSSClient client;
+    // 待遍历请求，无分隔符为递归遍历整个目录，有分隔符为从Marker开始遍历当前目录一页
+    private final Deque<ListObjectsRequest> requests;
+    private final Deque<OSSObjectSummary> buffer = new ArrayDeque<>(); // 按目录遍历时当前目录下的对象
+    private AliyunOSSObjectSummaryIterator current; // 当前递归遍历
+    private final Set<AliyunOSSObjectSummaryIterator> opened; // 与拆分出的遍历器共享，未遍历完的对象遍历器
+
+    public AliyunOSSObjectSummarySpliterator(AliyunOSSFileSystemProvider fileSystemProvider,
+                                             OSSClient client, String bucketName, String prefix) {
+        this.fileSystemProvider = fileSystemProvider;
+        this.client = client;
+        this.requests = new ArrayDeque<>();
+        this.opened = ConcurrentHashMap.newKeySet();
+        this.requests.offer(new ListObjectsRequest(bucketName, prefix, null, null, fileSystemProvider.getListMaxKeys()));
+    }
+
+    private AliyunOSSObjectSummarySpliterator(AliyunOSSObjectSummarySpliterator parent, Deque<ListObjectsRequest> requests) {
+        this.fileSystemProvider = parent.fileSystemProvider;
+        this.client = parent.client;
+        this.requests = requests;
+        this.opened = parent.opened;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OSSObjectSummary> action) {
+        while (buffer.isEmpty() && (current == null || !current.hasNext())) {
+            if (current != null) {
+                opened.remove(current);
+                current = null;
+            }
+            ListObjectsRequest request = requests.poll();
+            if (request == null) {
+                return false;
+            }
+            if (request.getDelimiter() == null) {
+                // 递归遍历整个目录
+                current = fileSystemProvider.newObjectSummaryIterator(
+                        client, request.getBucketName(), request.getPrefix(), null);
+                opened.add(current);
+            } else {
+                // 遍历当前目录一页
+                expand(request);
+            }
+        }
+        action.accept(buffer.isEmpty() ? current.next() : buffer.poll());
+        return true;
+    }
+
+    @Override
+    public Spliterator<OSSObjectSummary> trySplit() {
+        if (requests.size() == 1) {
+            // 只剩一个请求时，展开一页
+            ListObjectsRequest request = requests.poll();
+            if (request.getDelimiter() == null) {
+                request = new ListObjectsRequest(request.getBucketName(), request.getPrefix(),
+                        null, DELIMITER, request.getMaxKeys());
+            }
+            expand(request);
+        }
+        if (requests.size() < 2) {
+            return null;
+        }
+        // 拆出一半请求
+        Deque<ListObjectsRequest> split = new ArrayDeque<>();
+        for (int n = requests.size() / 2; n > 0; n--) {
+            split.offerFirst(requests.pollLast());
+        }
+        return new AliyunOSSObjectSummarySpliterator(this, split);
+    }
+
+    /**
+     * 按分隔符遍历一页：对象放入缓冲区，子目录加入递归遍历请求，未完成时加入下一页请求
+     */
+    private void expand(ListObjectsRequest request) {
+        ObjectListing objectListing = client.listObjects(request);
+        buffer.addAll(objectListing.getObjectSummaries());
+        for (String commonPrefix : objectListing.getCommonPrefixes()) {
+            requests.offer(new ListObjectsRequest(request.getBucketName(), commonPrefix,
+                    null, null, request.getMaxKeys()));
+        }
+        if (objectListing.getNextMarker() != null) {
+            requests.offerFirst(new ListObjectsRequest(request.getBucketName(), request.getPrefix(),
+                    objectListing.getNextMarker(), DELIMITER, request.getMaxKeys()));
+        }
+    }
+
+    @Override
+    public void close() {
+        for (AliyunOSSObjectSummaryIterator iterator : opened) {
+            iterator.close();
+        }
+        opened.clear();
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
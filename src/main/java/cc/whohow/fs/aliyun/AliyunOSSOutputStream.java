@@ -7,6 +7,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
+/**
+ * 追加写入（AppendObject），每次write为一次追加请求，建议配合缓冲使用
+ */
 public class AliyunOSSOutputStream extends OutputStream {
     private final OSSClient client;
     private final String bucketName;
@@ -14,10 +17,17 @@ public class AliyunOSSOutputStream extends OutputStream {
     private volatile long position;
 
     public AliyunOSSOutputStream(OSSClient client, String bucketName, String objectKey) {
+        this(client, bucketName, objectKey, 0L);
+    }
+
+    /**
+     * @param position 追加起始位置，需等于当前文件长度
+     */
+    public AliyunOSSOutputStream(OSSClient client, String bucketName, String objectKey, long position) {
         this.client = client;
         this.bucketName = bucketName;
         this.objectKey = objectKey;
-        this.position = 0L;
+        this.position = position;
     }
 
     public OSSClient getClient() {
@@ -0,0 +1,30 @@
+package cc.whohow.fs.aliyun;
+
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+
+/**
+ * 阿里云文件监听溢出事件，事件缓冲区已满时丢弃的事件数
+ */
+public class AliyunOSSOverflowEvent implements WatchEvent<Object> {
+    private final int count; // 丢弃事件数
+
+    public AliyunOSSOverflowEvent(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public Kind<Object> kind() {
+        return StandardWatchEventKinds.OVERFLOW;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public Object context() {
+        return null;
+    }
+}
@@ -11,9 +11,9 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.file.*;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * OSS路径。以/开头为绝对路径，否则为相对路径。以/结尾为目录，否则为普通文件。
@@ -21,6 +21,11 @@ import java.util.stream.StreamSupport;
 public class AliyunOSSPath implements Path {
     private final AliyunOSSFileSystem fileSystem; // 所属文件系统
     private final String pathDescriptor; // 路径描述符，绝对路径为 /ObjectKey，相对路径为name1/name2/.../nameN
+    // 缓存
+    private volatile String string; // toString()
+    private volatile URI uri; // toUri()
+    private volatile int[] nameOffsets; // toString()路径名偏移量
+    private int hash;
 
     public AliyunOSSPath(AliyunOSSFileSystem fileSystem, String pathDescriptor) {
         this.fileSystem = fileSystem;
@@ -119,26 +124,46 @@ public class AliyunOSSPath implements Path {
         return Names.getNames(toString());
     }
 
+    /**
+     * 遍历路径名，不创建子字符串
+     */
+    public void forEachName(Names.NameConsumer consumer) {
+        Names.forEachName(toString(), consumer);
+    }
+
+    private int[] getNameOffsets() {
+        int[] offsets = nameOffsets;
+        if (offsets == null) {
+            offsets = Names.getNameOffsets(toString());
+            nameOffsets = offsets;
+        }
+        return offsets;
+    }
+
     @Override
     public int getNameCount() {
-        return Names.getNameCount(toString());
+        return getNameOffsets().length - 1;
     }
 
     @Override
     public AliyunOSSPath getName(int index) {
-        return StreamSupport.stream(getNames().spliterator(), false)
-                .skip(index)
-                .findFirst()
-                .map(name -> new AliyunOSSPath(fileSystem, name))
-                .orElse(null);
+        int[] offsets = getNameOffsets();
+        if (index < 0 || index >= offsets.length - 1) {
+            return null;
+        }
+        return new AliyunOSSPath(fileSystem, Names.getName(toString(), offsets, index));
     }
 
     @Override
     public AliyunOSSPath subpath(int beginIndex, int endIndex) {
-        String names = StreamSupport.stream(getNames().spliterator(), false)
-                .skip(beginIndex)
-                .limit(endIndex - beginIndex + 1)
-                .collect(Collectors.joining("/"));
+        int[] offsets = getNameOffsets();
+        int count = offsets.length - 1;
+        int begin = Math.max(0, beginIndex);
+        int end = (int) Math.min(count, (long) endIndex + 1);
+        if (begin >= end) {
+            return null;
+        }
+        String names = toString().substring(offsets[begin], offsets[end] - 1);
         return names.isEmpty() ? null : new AliyunOSSPath(fileSystem, names);
     }
 
@@ -164,7 +189,8 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public AliyunOSSPath normalize() {
-        return new AliyunOSSPath(fileSystem, URI.create(pathDescriptor).normalize().toString());
+        String normalized = Names.normalize(pathDescriptor);
+        return normalized == pathDescriptor ? this : new AliyunOSSPath(fileSystem, normalized);
     }
 
     @Override
@@ -174,7 +200,7 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public AliyunOSSPath resolve(String other) {
-        return new AliyunOSSPath(fileSystem, URI.create(pathDescriptor).resolve(other).toString());
+        return new AliyunOSSPath(fileSystem, Names.resolve(pathDescriptor, other));
     }
 
     @Override
@@ -189,7 +215,7 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public AliyunOSSPath relativize(Path other) {
-        return new AliyunOSSPath(fileSystem, URI.create(toString()).relativize(URI.create(other.toString())).toString());
+        return new AliyunOSSPath(fileSystem, Names.relativize(toString(), other.toString()));
     }
 
     /**
@@ -198,7 +224,12 @@ public class AliyunOSSPath implements Path {
     @Override
     public URI toUri() {
         if (isAbsolute()) {
-            return getFileStore().getUri().resolve(pathDescriptor);
+            URI u = uri;
+            if (u == null) {
+                u = URI.create(getFileStore().getUri() + pathDescriptor);
+                uri = u;
+            }
+            return u;
         }
         return null;
     }
@@ -260,6 +291,13 @@ public class AliyunOSSPath implements Path {
         fileSystem.provider().getWatchService().register(this, listener);
     }
 
+    /**
+     * 批量监听目录及文件，每次轮询的所有事件一次回调，回调方法返回false则停止监听
+     */
+    public void watchBatch(Function<List<AliyunOSSWatchEvent>, Boolean> listener) {
+        fileSystem.provider().getWatchService().registerBatch(this, listener);
+    }
+
     /**
      * 读取并监听文件，回调方法返回false则停止监听，读取成功返回true，失败返回false
      */
@@ -284,9 +322,24 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public Iterator<Path> iterator() {
-        return StreamSupport.stream(getNames().spliterator(), false)
-                .map(self -> (Path) new AliyunOSSPath(fileSystem, self))
-                .iterator();
+        String names = toString();
+        int[] offsets = getNameOffsets();
+        return new Iterator<Path>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < offsets.length - 1;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new AliyunOSSPath(fileSystem, Names.getName(names, offsets, index++));
+            }
+        };
     }
 
     @Override
@@ -296,7 +349,12 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public String toString() {
-        return isAbsolute() ? getVfsPath() : pathDescriptor;
+        String s = string;
+        if (s == null) {
+            s = isAbsolute() ? getVfsPath() : pathDescriptor;
+            string = s;
+        }
+        return s;
     }
 
     @Override
@@ -307,7 +365,12 @@ public class AliyunOSSPath implements Path {
 
     @Override
     public int hashCode() {
-        return fileSystem.hashCode() * 31 + pathDescriptor.hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = fileSystem.hashCode() * 31 + pathDescriptor.hashCode();
+            hash = h;
+        }
+        return h;
     }
 
     public AliyunOSSFile toAliyunOSSFile() {
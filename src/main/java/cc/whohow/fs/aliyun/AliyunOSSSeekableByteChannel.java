@@ -0,0 +1,233 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.SimplifiedObjectMeta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+
+/**
+ * 只读文件Channel，按当前位置按需发起Range GET，不下载整个文件；配置块缓存时按块读取并缓存
+ */
+public class AliyunOSSSeekableByteChannel implements SeekableByteChannel {
+    private static final long SKIP_THRESHOLD = 256 * 1024; // 向后跳转小于此距离时复用当前连接
+    private final OSSClient client;
+    private final String bucketName;
+    private final String objectKey;
+    private final String eTag; // 打开时的ETag，保证读取过程中文件未被修改
+    private final long size; // 文件长度
+    private final AliyunOSSBlockCache cache; // 块缓存，null为不缓存
+    private volatile boolean open;
+    private long position; // 当前位置
+    private OSSObject object; // 当前Range请求
+    private InputStream stream; // 当前Range请求流
+    private long streamPosition; // 当前Range请求流位置
+
+    public AliyunOSSSeekableByteChannel(OSSClient client, String bucketName, String objectKey) throws IOException {
+        this(client, bucketName, objectKey, null);
+    }
+
+    /**
+     * @param cache 块缓存，null为不缓存
+     */
+    public AliyunOSSSeekableByteChannel(OSSClient client, String bucketName, String objectKey,
+                                        AliyunOSSBlockCache cache) throws IOException {
+        if (objectKey.endsWith("/")) {
+            throw new IOException("NotFile");
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.cache = cache;
+        try {
+            SimplifiedObjectMeta objectMeta = client.getSimplifiedObjectMeta(bucketName, objectKey);
+            this.eTag = objectMeta.getETag();
+            this.size = objectMeta.getSize();
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_BUCKET.equals(e.getErrorCode())
+                    || OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                throw new NoSuchFileException(objectKey);
+            }
+            throw e;
+        }
+        this.open = true;
+        this.position = 0L;
+    }
+
+    public OSSClient getClient() {
+        return client;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (cache != null) {
+            return readBlock(dst);
+        }
+        InputStream in = seek();
+        int n;
+        if (dst.hasArray()) {
+            n = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (n > 0) {
+                dst.position(dst.position() + n);
+            }
+        } else {
+            byte[] buffer = new byte[Math.min(dst.remaining(), 8 * 1024)];
+            n = in.read(buffer);
+            if (n > 0) {
+                dst.put(buffer, 0, n);
+            }
+        }
+        if (n < 0) {
+            // 未到文件末尾，连接提前结束
+            closeStream();
+            throw new IOException("UnexpectedEndOfStream: " + objectKey + "@" + position);
+        }
+        position += n;
+        streamPosition += n;
+        return n;
+    }
+
+    /**
+     * 从块缓存读取，每次最多读取到当前块末尾
+     */
+    private int readBlock(ByteBuffer dst) throws IOException {
+        int blockSize = cache.getBlockSize();
+        ByteBuffer block = cache.getBlock(client, bucketName, objectKey, eTag, size, position / blockSize);
+        block.position((int) (position % blockSize));
+        int n = Math.min(dst.remaining(), block.remaining());
+        block.limit(block.position() + n);
+        dst.put(block);
+        position += n;
+        return n;
+    }
+
+    /**
+     * 定位到当前位置，必要时重新发起Range请求
+     */
+    private InputStream seek() throws IOException {
+        if (stream != null && streamPosition != position) {
+            long distance = position - streamPosition;
+            if (distance > 0 && distance <= SKIP_THRESHOLD) {
+                // 短距离向后跳转，直接跳过
+                while (streamPosition < position) {
+                    long skipped = stream.skip(position - streamPosition);
+                    if (skipped <= 0) {
+                        break;
+                    }
+                    streamPosition += skipped;
+                }
+            }
+            if (streamPosition != position) {
+                closeStream();
+            }
+        }
+        if (stream == null) {
+            GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, objectKey);
+            getObjectRequest.setRange(position, size - 1);
+            getObjectRequest.setMatchingETagConstraints(Collections.singletonList(eTag));
+            try {
+                object = client.getObject(getObjectRequest);
+            } catch (OSSException e) {
+                if (OSSErrorCode.PRECONDITION_FAILED.equals(e.getErrorCode())) {
+                    throw new IOException("ObjectModified: " + objectKey, e);
+                }
+                throw e;
+            }
+            stream = object.getObjectContent();
+            streamPosition = position;
+        }
+        return stream;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            closeStream();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void closeStream() throws IOException {
+        if (object != null) {
+            try {
+                // 未读完的Range请求直接断开，避免读完剩余内容
+                object.forcedClose();
+            } finally {
+                object = null;
+                stream = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package cc.whohow.fs.aliyun;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 集群监听：集群中只有一个节点（leader）轮询OSS，并将变更事件写入共享变更日志，其他节点读取日志并分发给本地监听点。
+ * <p>
+ * 租约：lease.[epoch]，通过在位置0追加写入抢占（只有一个节点能成功），leader定期追加心跳续约；
+ * 其他节点在超过租约超时时间未观察到心跳后抢占下一个epoch。
+ * 变更日志：log.[epoch]，每行为“事件类型\t目标URI”，由该epoch的leader追加写入，其他节点按位置读取。
+ * <p>
+ * 所有节点需注册相同的监听目录，leader只轮询本节点注册的监听目录。
+ * <p>
+ * leader持有租约超过2个租约超时时间后，删除更早epoch的租约及日志（其他节点此时已读完旧日志）。
+ */
+public class AliyunOSSWatchCluster implements Runnable, AutoCloseable {
+    private static final String LEASE = "lease.";
+    private static final String LOG = "log.";
+    private static final int READ_SIZE = 1024 * 1024;
+
+    private final BiConsumer<List<WatchEvent.Kind<Path>>, List<String>> dispatcher; // 分发日志中读取的变更事件
+    private final AliyunOSSWatchLogStore store; // 共享存储
+    private final String nodeId; // 节点标识
+    private final long leaseTimeout; // 租约超时时间（纳秒）
+    private volatile ScheduledFuture<?> future;
+
+    private volatile boolean leader; // 是否为leader
+    private volatile long epoch = -1; // 当前租约编号，-1为未知
+    private long leasePosition; // 租约长度
+    private long leaseObservedAt; // 观察到租约长度变化（leader为续约成功）的本地时间（纳秒）
+    private long logEpoch = -1; // 当前读取（leader为写入）的日志编号，-1为未开始
+    private long logPosition; // 日志读取（写入）位置
+    private long acquiredAt; // 成为leader的本地时间（纳秒）
+    private long compactedEpoch = -1; // 已清理旧租约及日志的epoch
+
+    public AliyunOSSWatchCluster(AliyunOSSWatchService watchService, AliyunOSSWatchLogStore store,
+                                 String nodeId, long leaseTimeout, TimeUnit unit) {
+        this(watchService::dispatchClusterEvents, store, nodeId, leaseTimeout, unit);
+    }
+
+    AliyunOSSWatchCluster(BiConsumer<List<WatchEvent.Kind<Path>>, List<String>> dispatcher, AliyunOSSWatchLogStore store,
+                          String nodeId, long leaseTimeout, TimeUnit unit) {
+        if (leaseTimeout <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.dispatcher = dispatcher;
+        this.store = store;
+        this.nodeId = nodeId;
+        this.leaseTimeout = unit.toNanos(leaseTimeout);
+    }
+
+    /**
+     * 开始，按间隔续约或读取日志
+     */
+    public void start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+        future = executor.scheduleWithFixedDelay(this, 0, interval, unit);
+    }
+
+    @Override
+    public void close() {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public synchronized void run() {
+        try {
+            if (leader) {
+                renew();
+            } else {
+                follow();
+            }
+        } catch (Throwable e) {
+            if (leader && System.nanoTime() - leaseObservedAt > leaseTimeout) {
+                // 无法续约，放弃leader
+                demote();
+            }
+        }
+    }
+
+    /**
+     * leader发布变更事件，写入成功返回true，已不是leader返回false，写入失败抛出UncheckedIOException
+     */
+    public synchronized boolean publish(List<WatchEvent.Kind<Path>> kinds, List<String> uris) {
+        if (!leader) {
+            return false;
+        }
+        if (kinds.isEmpty()) {
+            return true;
+        }
+        if (System.nanoTime() - leaseObservedAt > leaseTimeout) {
+            demote();
+            return false;
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < kinds.size(); i++) {
+            buffer.append(kinds.get(i).name()).append('\t').append(escape(uris.get(i))).append('\n');
+        }
+        try {
+            long position = store.append(LOG + epoch, logPosition, buffer.toString().getBytes(StandardCharsets.UTF_8));
+            if (position < 0) {
+                demote();
+                return false;
+            }
+            logPosition = position;
+            return true;
+        } catch (IOException e) {
+            // 写入结果未知，重新读取日志长度
+            try {
+                logPosition = Math.max(0, store.length(LOG + epoch));
+            } catch (IOException ignore) {
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 续约：每1/3租约超时时间追加一次心跳，发现更新的租约时放弃leader
+     */
+    private void renew() throws IOException {
+        long now = System.nanoTime();
+        if (now - leaseObservedAt < leaseTimeout / 3) {
+            return;
+        }
+        if (store.length(LEASE + (epoch + 1)) >= 0) {
+            demote();
+            return;
+        }
+        long position = store.append(LEASE + epoch, leasePosition, heartbeat());
+        if (position < 0) {
+            demote();
+            return;
+        }
+        leasePosition = position;
+        leaseObservedAt = now;
+        if (compactedEpoch != epoch && now - acquiredAt > leaseTimeout * 2) {
+            compact();
+            compactedEpoch = epoch;
+        }
+    }
+
+    /**
+     * 删除当前epoch之前的租约及日志
+     */
+    private void compact() throws IOException {
+        for (String prefix : new String[]{LEASE, LOG}) {
+            for (String name : store.list(prefix)) {
+                try {
+                    if (Long.parseLong(name.substring(prefix.length())) < epoch) {
+                        store.delete(name);
+                    }
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 观察租约，租约超时后抢占；读取变更日志
+     */
+    private void follow() throws IOException {
+        long now = System.nanoTime();
+        if (epoch < 0 || store.length(LEASE + (epoch + 1)) >= 0) {
+            long latest = latestEpoch();
+            if (latest < 0) {
+                acquire(0);
+                return;
+            }
+            epoch = latest;
+            leasePosition = store.length(LEASE + latest);
+            leaseObservedAt = now;
+        } else {
+            long length = store.length(LEASE + epoch);
+            if (length != leasePosition) {
+                leasePosition = length;
+                leaseObservedAt = now;
+            } else if (now - leaseObservedAt > leaseTimeout) {
+                tail();
+                acquire(epoch + 1);
+                return;
+            }
+        }
+        tail();
+    }
+
+    private void acquire(long e) throws IOException {
+        long position = store.append(LEASE + e, 0, heartbeat());
+        if (position < 0) {
+            // 其他节点已抢占，下次观察
+            return;
+        }
+        leader = true;
+        epoch = e;
+        leasePosition = position;
+        leaseObservedAt = System.nanoTime();
+        acquiredAt = leaseObservedAt;
+        logEpoch = e;
+        logPosition = 0;
+    }
+
+    private void demote() {
+        leader = false;
+        epoch = -1;
+    }
+
+    /**
+     * 读取变更日志，当前日志读完后切换到下一个epoch的日志
+     */
+    private void tail() throws IOException {
+        if (logEpoch < 0) {
+            // 首次读取，从当前日志末尾开始
+            logEpoch = epoch;
+            logPosition = Math.max(0, store.length(LOG + epoch));
+            return;
+        }
+        List<WatchEvent.Kind<Path>> kinds = new ArrayList<>();
+        List<String> uris = new ArrayList<>();
+        while (true) {
+            byte[] bytes = store.read(LOG + logEpoch, logPosition, READ_SIZE);
+            int end = lastIndexOf(bytes, (byte) '\n');
+            if (end >= 0) {
+                parse(new String(bytes, 0, end + 1, StandardCharsets.UTF_8), kinds, uris);
+                logPosition += end + 1;
+                continue;
+            }
+            if (logEpoch < epoch) {
+                logEpoch++;
+                logPosition = 0;
+                continue;
+            }
+            break;
+        }
+        dispatcher.accept(kinds, uris);
+    }
+
+    private long latestEpoch() throws IOException {
+        long latest = -1;
+        for (String name : store.list(LEASE)) {
+            try {
+                latest = Math.max(latest, Long.parseLong(name.substring(LEASE.length())));
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return latest;
+    }
+
+    private byte[] heartbeat() {
+        return (nodeId + "\t" + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void parse(String lines, List<WatchEvent.Kind<Path>> kinds, List<String> uris) {
+        int begin = 0;
+        for (int end = lines.indexOf('\n'); end >= 0; begin = end + 1, end = lines.indexOf('\n', begin)) {
+            int tab = lines.indexOf('\t', begin);
+            if (tab < 0 || tab > end) {
+                continue;
+            }
+            WatchEvent.Kind<Path> kind = toKind(lines.substring(begin, tab));
+            if (kind != null) {
+                kinds.add(kind);
+                uris.add(unescape(lines.substring(tab + 1, end)));
+            }
+        }
+    }
+
+    private static WatchEvent.Kind<Path> toKind(String name) {
+        switch (name) {
+            case "ENTRY_CREATE":
+                return StandardWatchEventKinds.ENTRY_CREATE;
+            case "ENTRY_MODIFY":
+                return StandardWatchEventKinds.ENTRY_MODIFY;
+            case "ENTRY_DELETE":
+                return StandardWatchEventKinds.ENTRY_DELETE;
+            default:
+                return null;
+        }
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String escape(String uri) {
+        if (uri.indexOf('%') < 0 && uri.indexOf('\t') < 0 && uri.indexOf('\n') < 0) {
+            return uri;
+        }
+        return uri.replace("%", "%25").replace("\t", "%09").replace("\n", "%0A");
+    }
+
+    private static String unescape(String uri) {
+        if (uri.indexOf('%') < 0) {
+            return uri;
+        }
+        return uri.replace("%0A", "\n").replace("%09", "\t").replace("%25", "%");
+    }
+}
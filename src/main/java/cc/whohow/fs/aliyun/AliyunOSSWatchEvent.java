@@ -12,13 +12,19 @@ public class AliyunOSSWatchEvent implements WatchEvent<Path> {
     private final AliyunOSSFileSystemProvider fileSystemProvider;
     private final String targetUri; // 事件目标URI
     private final AliyunOSSPath watchable; // 事件监听者
+    private final int count; // 重复次数
 
     public AliyunOSSWatchEvent(AliyunOSSWatchEvent e, AliyunOSSPath watchable) {
+        this(e, watchable, e.count);
+    }
+
+    public AliyunOSSWatchEvent(AliyunOSSWatchEvent e, AliyunOSSPath watchable, int count) {
         this.timestamp = e.timestamp;
         this.kind = e.kind;
         this.fileSystemProvider = e.fileSystemProvider;
         this.targetUri = e.targetUri;
         this.watchable = watchable;
+        this.count = count;
     }
 
     public AliyunOSSWatchEvent(Kind<Path> kind, AliyunOSSFileSystemProvider fileSystemProvider, String targetUri, AliyunOSSPath watchable) {
@@ -27,6 +33,7 @@ public class AliyunOSSWatchEvent implements WatchEvent<Path> {
         this.fileSystemProvider = fileSystemProvider;
         this.targetUri = targetUri;
         this.watchable = watchable;
+        this.count = 1;
     }
 
     @Override
@@ -36,7 +43,7 @@ public class AliyunOSSWatchEvent implements WatchEvent<Path> {
 
     @Override
     public int count() {
-        return 1;
+        return count;
     }
 
     @Override
@@ -2,22 +2,44 @@ package cc.whohow.fs.aliyun;
 
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * 阿里云文件监听点
+ * 阿里云文件监听点。
+ * 事件缓冲区有界，超出容量的事件合并为一个OVERFLOW事件；与上一个事件类型、目标相同的事件合并计数。
+ * 有事件时进入signalled状态并放入监听服务队列，reset后回到ready状态。
  */
 public class AliyunOSSWatchKey implements WatchKey {
+    private static final AliyunOSSWatchEvent[] EMPTY_EVENTS = new AliyunOSSWatchEvent[0];
+    private static final int[] EMPTY_COUNTS = new int[0];
+
     private final AliyunOSSWatchService watchService; // 监听服务
     private final AliyunOSSPath watchable; // 监听目录
+    private final int capacity; // 事件缓冲区容量
+    private final AtomicBoolean signalled = new AtomicBoolean(false); // 是否已放入监听服务队列
     private volatile boolean valid; // 是否有效
-    private volatile List<AliyunOSSWatchEvent> pendingEvents = new CopyOnWriteArrayList<>(); // 事件接收队列
+    // 事件缓冲区，共享原始事件，pollEvents时再关联监听目录
+    private AliyunOSSWatchEvent[] events = EMPTY_EVENTS;
+    private int[] counts = EMPTY_COUNTS;
+    private int size;
+    private int overflow; // 溢出事件数
 
     public AliyunOSSWatchKey(AliyunOSSWatchService watchService, AliyunOSSPath watchable) {
+        this(watchService, watchable, watchService.getWatchKeyCapacity());
+    }
+
+    public AliyunOSSWatchKey(AliyunOSSWatchService watchService, AliyunOSSPath watchable, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
         this.watchService = watchService;
         this.watchable = watchable;
+        this.capacity = capacity;
         this.valid = true;
     }
 
@@ -28,18 +50,44 @@ public class AliyunOSSWatchKey implements WatchKey {
 
     @Override
     public List<WatchEvent<?>> pollEvents() {
-        List<WatchEvent<?>> events = Collections.unmodifiableList(pendingEvents); // 保存当前事件列表
-        pendingEvents = new CopyOnWriteArrayList<>(); // 启用新事件列表
-        return events;
+        AliyunOSSWatchEvent[] polledEvents;
+        int[] polledCounts;
+        int polledSize;
+        int polledOverflow;
+        synchronized (this) {
+            polledEvents = events;
+            polledCounts = counts;
+            polledSize = size;
+            polledOverflow = overflow;
+            events = EMPTY_EVENTS;
+            counts = EMPTY_COUNTS;
+            size = 0;
+            overflow = 0;
+        }
+        if (polledSize == 0 && polledOverflow == 0) {
+            return Collections.emptyList();
+        }
+        List<WatchEvent<?>> list = new ArrayList<>(polledSize + 1);
+        for (int i = 0; i < polledSize; i++) {
+            list.add(new AliyunOSSWatchEvent(polledEvents[i], watchable, polledCounts[i]));
+        }
+        if (polledOverflow > 0) {
+            list.add(new AliyunOSSOverflowEvent(polledOverflow));
+        }
+        return Collections.unmodifiableList(list);
     }
 
     @Override
     public boolean reset() {
-        if (isValid()) {
-            pendingEvents = new CopyOnWriteArrayList<>();
-            return true;
+        if (!isValid()) {
+            return false;
         }
-        return false;
+        signalled.set(false);
+        // reset前到达的事件需重新通知
+        if (hasPendingEvents()) {
+            signal();
+        }
+        return true;
     }
 
     @Override
@@ -54,10 +102,43 @@ public class AliyunOSSWatchKey implements WatchKey {
     }
 
     public boolean isSignalled() {
-        return !pendingEvents.isEmpty();
+        return signalled.get();
     }
 
     public void offerEvent(AliyunOSSWatchEvent e) {
-        pendingEvents.add(new AliyunOSSWatchEvent(e, watchable));
+        if (!valid) {
+            return;
+        }
+        synchronized (this) {
+            if (size > 0 && events[size - 1].kind() == e.kind()
+                    && Objects.equals(events[size - 1].getTargetUri(), e.getTargetUri())) {
+                counts[size - 1] += e.count();
+            } else if (size < capacity) {
+                if (size == events.length) {
+                    int length = Math.min(capacity, Math.max(16, size * 2));
+                    events = Arrays.copyOf(events, length);
+                    counts = Arrays.copyOf(counts, length);
+                }
+                events[size] = e;
+                counts[size] = e.count();
+                size++;
+            } else {
+                overflow += e.count();
+            }
+        }
+        signal();
+    }
+
+    private synchronized boolean hasPendingEvents() {
+        return size > 0 || overflow > 0;
+    }
+
+    /**
+     * ready状态转为signalled状态时放入监听服务队列
+     */
+    private void signal() {
+        if (signalled.compareAndSet(false, true)) {
+            watchService.signal(this);
+        }
     }
 }
@@ -0,0 +1,116 @@
+package cc.whohow.fs.aliyun;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 阿里云文件监听回调。事件按到达顺序串行投递，同一回调同时只在一个线程中执行；回调返回false则停止监听。
+ */
+public class AliyunOSSWatchListener implements Runnable {
+    private static final int MAX_BATCHES_PER_RUN = 64; // 每次执行最多投递批次数，避免长期占用线程
+
+    private final Function<List<AliyunOSSWatchEvent>, Boolean> callback; // 回调
+    private final boolean batch; // 是否按轮询批次投递
+    private final Executor executor; // 投递线程池
+    private final Queue<List<AliyunOSSWatchEvent>> queue = new ConcurrentLinkedQueue<>(); // 待投递事件
+    private final AtomicBoolean scheduled = new AtomicBoolean(false); // 是否已提交投递
+    private volatile Runnable cancelHandler; // 停止监听处理
+    private volatile boolean cancelled;
+
+    private AliyunOSSWatchListener(Function<List<AliyunOSSWatchEvent>, Boolean> callback, boolean batch, Executor executor) {
+        this.callback = callback;
+        this.batch = batch;
+        this.executor = executor;
+    }
+
+    /**
+     * 逐个事件回调
+     */
+    public static AliyunOSSWatchListener of(Function<AliyunOSSWatchEvent, Boolean> listener, Executor executor) {
+        return new AliyunOSSWatchListener(events -> {
+            for (AliyunOSSWatchEvent event : events) {
+                if (Boolean.FALSE.equals(listener.apply(event))) {
+                    return false;
+                }
+            }
+            return true;
+        }, false, executor);
+    }
+
+    /**
+     * 每次轮询的所有事件一次回调
+     */
+    public static AliyunOSSWatchListener ofBatch(Function<List<AliyunOSSWatchEvent>, Boolean> listener, Executor executor) {
+        return new AliyunOSSWatchListener(listener, true, executor);
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setCancelHandler(Runnable cancelHandler) {
+        this.cancelHandler = cancelHandler;
+    }
+
+    /**
+     * 提交事件，异步投递
+     */
+    public void offer(List<AliyunOSSWatchEvent> events) {
+        if (cancelled || events.isEmpty()) {
+            return;
+        }
+        queue.offer(events);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN && !cancelled; i++) {
+                List<AliyunOSSWatchEvent> events = queue.poll();
+                if (events == null) {
+                    break;
+                }
+                try {
+                    if (Boolean.FALSE.equals(callback.apply(events))) {
+                        cancel();
+                    }
+                } catch (Throwable ignore) {
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        if (!cancelled && !queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        queue.clear();
+        Runnable handler = cancelHandler;
+        if (handler != null) {
+            handler.run();
+        }
+    }
+}
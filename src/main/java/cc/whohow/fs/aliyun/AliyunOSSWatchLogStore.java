@@ -0,0 +1,34 @@
+package cc.whohow.fs.aliyun;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 集群监听共享存储，保存租约及变更日志。只支持追加写入，追加位置需等于当前长度，以此保证同一时刻只有一个写入者。
+ */
+public interface AliyunOSSWatchLogStore {
+    /**
+     * 在position处追加写入，position需等于当前长度（不存在时为0），返回写入后长度；position不匹配时返回-1
+     */
+    long append(String name, long position, byte[] data) throws IOException;
+
+    /**
+     * 长度，不存在时返回-1
+     */
+    long length(String name) throws IOException;
+
+    /**
+     * 从position开始读取最多maxLength字节，没有更多内容时返回空数组
+     */
+    byte[] read(String name, long position, int maxLength) throws IOException;
+
+    /**
+     * 列出指定前缀的名称
+     */
+    List<String> list(String prefix) throws IOException;
+
+    /**
+     * 删除，不存在时忽略
+     */
+    void delete(String name) throws IOException;
+}
@@ -0,0 +1,42 @@
+package cc.whohow.fs.aliyun;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 阿里云文件监听点，同一URI上注册的监听Key及监听回调
+ */
+public class AliyunOSSWatchPoint {
+    private final String uri; // 监听URI
+    private final boolean directory; // 是否为目录
+    private final List<AliyunOSSWatchKey> watchKeys = new CopyOnWriteArrayList<>(); // 监听Key集合
+    private final List<AliyunOSSWatchListener> listeners = new CopyOnWriteArrayList<>(); // 监听回调集合
+
+    public AliyunOSSWatchPoint(String uri) {
+        this.uri = uri;
+        this.directory = uri.endsWith("/");
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public List<AliyunOSSWatchKey> getWatchKeys() {
+        return watchKeys;
+    }
+
+    public List<AliyunOSSWatchListener> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * 是否监听目标URI：目录匹配所有子对象，文件需完全相同
+     */
+    public boolean accept(String targetUri) {
+        return directory ? targetUri.startsWith(uri) : targetUri.equals(uri);
+    }
+
+    public boolean isEmpty() {
+        return watchKeys.isEmpty() && listeners.isEmpty();
+    }
+}
@@ -1,10 +1,22 @@
 package cc.whohow.fs.aliyun;
 
+import cc.whohow.fs.HashedWheelTimer;
+import cc.whohow.fs.RadixTrie;
+
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
 import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
 import java.nio.file.WatchService;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 
 /**
@@ -13,17 +25,97 @@ import java.util.function.Function;
 public class AliyunOSSWatchService implements WatchService {
     private final AliyunOSSFileSystemProvider fileSystemProvider;
     private final Properties properties;
-    private final ScheduledExecutorService executor;
 
     private final List<AliyunOSSWatchTask> tasks = new CopyOnWriteArrayList<>(); // 监听任务集合
-    private final Map<String, List<AliyunOSSWatchKey>> watchKeys = new ConcurrentHashMap<>(); // 监听点集合
-    private final Map<String, List<Function<AliyunOSSWatchEvent, Boolean>>> listeners = new ConcurrentHashMap<>(); // 监听回调集合
+    private final RadixTrie<AliyunOSSWatchPoint> watchPoints = new RadixTrie<>(); // 监听点集合，按URI前缀索引
+    private final ReadWriteLock watchPointsLock = new ReentrantReadWriteLock();
     private final BlockingQueue<AliyunOSSWatchKey> watchKeyQueue = new LinkedBlockingQueue<>(); // 监听点队列
+    private final AliyunOSSWatchCluster cluster; // 集群监听，null为单机模式
+    private final ScheduledExecutorService clusterExecutor; // 集群续约及读取日志线程，不与其他任务共享，避免错过心跳
+    private final List<AliyunOSSChangeSource> changeSources = new CopyOnWriteArrayList<>(); // 推送事件源
 
     public AliyunOSSWatchService(AliyunOSSFileSystemProvider fileSystemProvider, Properties properties) {
         this.fileSystemProvider = fileSystemProvider;
         this.properties = properties;
-        this.executor = fileSystemProvider.getExecutor();
+        this.cluster = newCluster();
+        if (cluster != null) {
+            clusterExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "AliyunOSSWatchCluster");
+                thread.setDaemon(true);
+                return thread;
+            });
+            cluster.start(clusterExecutor,
+                    Long.parseLong(properties.getProperty("watch-cluster-interval", "1000")), TimeUnit.MILLISECONDS);
+        } else {
+            clusterExecutor = null;
+        }
+        String pushPort = properties.getProperty("watch-push-port", "");
+        if (!pushPort.isEmpty()) {
+            try {
+                addChangeSource(new AliyunOSSHttpChangeSource(new InetSocketAddress(
+                        properties.getProperty("watch-push-host", "0.0.0.0"), Integer.parseInt(pushPort)),
+                        properties.getProperty("watch-push-path", "/"),
+                        properties.getProperty("watch-push-token")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 添加推送事件源，事件源的变更直接分发给本地监听点，轮询降级为低频对账（watch-reconcile-interval）
+     */
+    public void addChangeSource(AliyunOSSChangeSource changeSource) throws IOException {
+        changeSource.start(this::dispatchChanges);
+        changeSources.add(changeSource);
+        // 运行中的任务降级为低频对账
+        for (AliyunOSSWatchTask task : tasks) {
+            task.retime(getWatchReconcileInterval(), getWatchMinInterval(), getWatchMaxInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 是否有推送事件源
+     */
+    public boolean isPushEnabled() {
+        return !changeSources.isEmpty();
+    }
+
+    /**
+     * 集群监听：watch-cluster-uri为共享存储目录（OSS目录，或file:本地目录），未配置时为单机模式
+     */
+    private AliyunOSSWatchCluster newCluster() {
+        String uri = properties.getProperty("watch-cluster-uri");
+        if (uri == null || uri.isEmpty()) {
+            return null;
+        }
+        AliyunOSSWatchLogStore store;
+        if (uri.startsWith("file:")) {
+            store = new AliyunOSSLocalWatchLogStore(new File(URI.create(uri)));
+        } else {
+            AliyunOSSPath path = fileSystemProvider.getPath(uri);
+            store = new AliyunOSSBucketWatchLogStore(path.getClient(), path.getBucketName(), path.getObjectKey());
+        }
+        String nodeId = properties.getProperty("watch-cluster-node", "");
+        if (nodeId.isEmpty()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        long leaseTimeout = Long.parseLong(properties.getProperty("watch-cluster-lease-timeout", "30000"));
+        return new AliyunOSSWatchCluster(this, store, nodeId, leaseTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 集群监听，null为单机模式
+     */
+    public AliyunOSSWatchCluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * 本节点是否轮询OSS：单机模式或集群leader
+     */
+    public boolean isPolling() {
+        return cluster == null || cluster.isLeader();
     }
 
     public AliyunOSSFileSystemProvider provider() {
@@ -37,8 +129,70 @@ public class AliyunOSSWatchService implements WatchService {
         return Long.parseLong(properties.getProperty("watch-interval", "60000"));
     }
 
+    /**
+     * 推送模式下的对账轮询间隔
+     */
+    public long getWatchReconcileInterval() {
+        return Long.parseLong(properties.getProperty("watch-reconcile-interval", "600000"));
+    }
+
+    /**
+     * 监听最小轮询间隔，默认为watch-interval
+     */
+    public long getWatchMinInterval() {
+        if (isPushEnabled()) {
+            return getWatchReconcileInterval();
+        }
+        return Long.parseLong(properties.getProperty("watch-interval-min", Long.toString(getWatchInterval())));
+    }
+
+    /**
+     * 监听最大轮询间隔，默认为watch-interval
+     */
+    public long getWatchMaxInterval() {
+        if (isPushEnabled()) {
+            return getWatchReconcileInterval();
+        }
+        return Long.parseLong(properties.getProperty("watch-interval-max", Long.toString(getWatchInterval())));
+    }
+
+    /**
+     * 监听点事件缓冲区容量，超出后产生OVERFLOW事件
+     */
+    public int getWatchKeyCapacity() {
+        return Integer.parseInt(properties.getProperty("watch-key-capacity", "512"));
+    }
+
+    /**
+     * 监听任务分片数，大目录拆分为多个Key范围并发轮询，默认 1（不拆分）
+     */
+    public int getWatchShards() {
+        return Integer.parseInt(properties.getProperty("watch-shards", "1"));
+    }
+
+    /**
+     * 监听快照检查点目录，未配置时不保存检查点
+     */
+    public File getWatchCheckpointDirectory() {
+        String directory = properties.getProperty("watch-checkpoint-dir");
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        return new File(directory);
+    }
+
     @Override
     public synchronized void close() throws IOException {
+            for (AliyunOSSChangeSource changeSource : changeSources) {
+                try {
+                    changeSource.close();
+                } catch (Throwable ignore) {
+                }
+            }
+            if (cluster != null) {
+                cluster.close();
+                clusterExecutor.shutdownNow();
+            }
             for (AliyunOSSWatchTask task : tasks) {
                 try {
                     task.stop();
@@ -49,46 +203,24 @@ public class AliyunOSSWatchService implements WatchService {
 
     @Override
     public AliyunOSSWatchKey poll() {
-        while (true) {
-            AliyunOSSWatchKey watchKey = watchKeyQueue.poll();
-            if (watchKey == null) {
-                return null;
-            }
-            if (watchKey.isSignalled()) {
-                watchKeyQueue.removeIf(e -> e == watchKey); // 移除重复
-                return watchKey;
-            }
-        }
+        return watchKeyQueue.poll();
     }
 
     @Override
     public AliyunOSSWatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
-        long timestamp = System.currentTimeMillis() + unit.toMillis(timeout);
-        while (true) {
-            long t = timestamp - System.currentTimeMillis();
-            if (t < 0) {
-                return null;
-            }
-            AliyunOSSWatchKey watchKey = watchKeyQueue.poll(t, unit);
-            if (watchKey == null) {
-                return null;
-            }
-            if (watchKey.isSignalled()) {
-                watchKeyQueue.removeIf(e -> e == watchKey);
-                return watchKey;
-            }
-        }
+        return watchKeyQueue.poll(timeout, unit);
     }
 
     @Override
     public AliyunOSSWatchKey take() throws InterruptedException {
-        while (true) {
-            AliyunOSSWatchKey watchKey = watchKeyQueue.take();
-            if (watchKey.isSignalled()) {
-                watchKeyQueue.removeIf(e -> e == watchKey);
-                return watchKey;
-            }
-        }
+        return watchKeyQueue.take();
+    }
+
+    /**
+     * 监听点进入signalled状态，放入队列
+     */
+    void signal(AliyunOSSWatchKey watchKey) {
+        watchKeyQueue.offer(watchKey);
     }
 
     /**
@@ -99,16 +231,33 @@ public class AliyunOSSWatchService implements WatchService {
             throw new NotDirectoryException(path.toString());
         }
         AliyunOSSWatchKey watchKey = new AliyunOSSWatchKey(this, path);
-        watchKeys.computeIfAbsent(path.toUri().toString(), s -> new CopyOnWriteArrayList<>()).add(watchKey);
+        getOrCreateWatchPoint(path.toUri().toString()).getWatchKeys().add(watchKey);
         watch(path);
         return watchKey;
     }
 
     /**
-     * 注册监听回调
+     * 注册监听回调，逐个事件按顺序回调
      */
     public synchronized void register(AliyunOSSPath path, Function<AliyunOSSWatchEvent, Boolean> listener) {
-        listeners.computeIfAbsent(path.toUri().toString(), s -> new CopyOnWriteArrayList<>()).add(listener);
+        register(path, AliyunOSSWatchListener.of(listener, fileSystemProvider.getListenerExecutor()));
+    }
+
+    /**
+     * 注册批量监听回调，每次轮询的所有事件一次回调
+     */
+    public synchronized void registerBatch(AliyunOSSPath path, Function<List<AliyunOSSWatchEvent>, Boolean> listener) {
+        register(path, AliyunOSSWatchListener.ofBatch(listener, fileSystemProvider.getListenerExecutor()));
+    }
+
+    private void register(AliyunOSSPath path, AliyunOSSWatchListener listener) {
+        String uri = path.toUri().toString();
+        AliyunOSSWatchPoint watchPoint = getOrCreateWatchPoint(uri);
+        listener.setCancelHandler(() -> {
+            watchPoint.getListeners().remove(listener);
+            unwatch(uri);
+        });
+        watchPoint.getListeners().add(listener);
         watch(path);
     }
 
@@ -117,16 +266,31 @@ public class AliyunOSSWatchService implements WatchService {
      */
     public synchronized void cancel(AliyunOSSWatchKey watchKey) {
         String uri = watchKey.watchable().toUri().toString();
-        List<AliyunOSSWatchKey> uriWatchKeys = watchKeys.get(uri);
-        if (uriWatchKeys == null || uriWatchKeys.isEmpty()) {
-            throw new IllegalStateException();
-        }
-        if (!uriWatchKeys.remove(watchKey)) {
+        AliyunOSSWatchPoint watchPoint = getWatchPoint(uri);
+        if (watchPoint == null || !watchPoint.getWatchKeys().remove(watchKey)) {
             throw new IllegalStateException();
         }
         unwatch(uri);
     }
 
+    private AliyunOSSWatchPoint getWatchPoint(String uri) {
+        watchPointsLock.readLock().lock();
+        try {
+            return watchPoints.get(uri);
+        } finally {
+            watchPointsLock.readLock().unlock();
+        }
+    }
+
+    private AliyunOSSWatchPoint getOrCreateWatchPoint(String uri) {
+        watchPointsLock.writeLock().lock();
+        try {
+            return watchPoints.computeIfAbsent(uri, AliyunOSSWatchPoint::new);
+        } finally {
+            watchPointsLock.writeLock().unlock();
+        }
+    }
+
     /**
      * 提交监听任务
      */
@@ -140,11 +304,13 @@ public class AliyunOSSWatchService implements WatchService {
         }
         AliyunOSSPath watchable = path.isFile() ? path.getParent() : path;
         AliyunOSSWatchTask task = new AliyunOSSWatchTask(this, watchable.getClient(),
-                watchable.getBucketName(), watchable.getFileStore().getExtranetEndpoint(), watchable.getObjectKey());
+                watchable.getBucketName(), watchable.getFileStore().getExtranetEndpoint(), watchable.getObjectKey(),
+                getWatchCheckpointDirectory());
         if (path != watchable) {
             task.addWatchObjectKey(path.getObjectKey());
         }
-        task.start(executor, getWatchInterval(), TimeUnit.MILLISECONDS);
+        task.start(fileSystemProvider.getWatchTimer(), isPushEnabled() ? getWatchReconcileInterval() : getWatchInterval(),
+                getWatchMinInterval(), getWatchMaxInterval(), TimeUnit.MILLISECONDS);
         tasks.add(task);
     }
 
@@ -152,17 +318,18 @@ public class AliyunOSSWatchService implements WatchService {
      * 取消监听任务
      */
     private synchronized void unwatch(String uri) {
-        List<AliyunOSSWatchKey> uriWatchKeys = watchKeys.get(uri);
-        if (uriWatchKeys != null && uriWatchKeys.isEmpty()) {
-            watchKeys.remove(uri, uriWatchKeys);
-            uriWatchKeys = null;
-        }
-        List<Function<AliyunOSSWatchEvent, Boolean>> uriListeners = listeners.get(uri);
-        if (uriListeners != null && uriListeners.isEmpty()) {
-            listeners.remove(uri, uriListeners);
-            uriListeners = null;
+        boolean removed;
+        watchPointsLock.writeLock().lock();
+        try {
+            AliyunOSSWatchPoint watchPoint = watchPoints.get(uri);
+            removed = watchPoint == null || watchPoint.isEmpty();
+            if (watchPoint != null && removed) {
+                watchPoints.remove(uri);
+            }
+        } finally {
+            watchPointsLock.writeLock().unlock();
         }
-        if (uriWatchKeys == null && uriListeners == null) {
+        if (removed) {
             Iterator<AliyunOSSWatchTask> iterator = tasks.iterator();
             while (iterator.hasNext()){
                 AliyunOSSWatchTask task = iterator.next();
@@ -172,6 +339,7 @@ public class AliyunOSSWatchService implements WatchService {
                     if (task.getWatchObjectKeys().isEmpty()) {
                         try {
                             task.stop();
+                            task.deleteCheckpoint();
                         } finally {
                             iterator.remove();
                         }
@@ -182,33 +350,106 @@ public class AliyunOSSWatchService implements WatchService {
     }
 
     /**
-     * 监听事件分发
+     * 监听事件分发，沿目标URI的前缀查找监听点，只通知监听根目录内的监听点
+     *
+     * @param root      监听根目录URI
+     * @param kind      事件类型
+     * @param targetUri 事件目标URI
+     * @param batches   批量回调本轮事件，由flush投递
      */
-    void dispatchEvents(String target, AliyunOSSWatchEvent event) {
-        List<AliyunOSSWatchKey> targetWatchKeys = watchKeys.get(target);
-        if (targetWatchKeys != null && !targetWatchKeys.isEmpty()) {
-            for (AliyunOSSWatchKey watchKey : targetWatchKeys) {
-                try {
-                    watchKey.offerEvent(event);
-                    watchKeyQueue.offer(watchKey);
-                } catch (Throwable ignore) {
+    void dispatchEvents(String root, WatchEvent.Kind<Path> kind, String targetUri,
+                        Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches) {
+        List<AliyunOSSWatchPoint> targets = new ArrayList<>(2);
+        watchPointsLock.readLock().lock();
+        try {
+            watchPoints.forEachPrefixOf(targetUri, e -> {
+                AliyunOSSWatchPoint watchPoint = e.getValue();
+                if (e.getKey().length() >= root.length() && watchPoint.accept(targetUri)) {
+                    targets.add(watchPoint);
                 }
+            });
+        } finally {
+            watchPointsLock.readLock().unlock();
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        AliyunOSSWatchEvent event = new AliyunOSSWatchEvent(kind, fileSystemProvider, targetUri, null);
+        for (AliyunOSSWatchPoint target : targets) {
+            dispatchEvents(target, event, batches);
+        }
+    }
+
+    private void dispatchEvents(AliyunOSSWatchPoint target, AliyunOSSWatchEvent event,
+                                Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches) {
+        for (AliyunOSSWatchKey watchKey : target.getWatchKeys()) {
+            try {
+                watchKey.offerEvent(event);
+            } catch (Throwable ignore) {
             }
         }
-        List<Function<AliyunOSSWatchEvent, Boolean>> targetListeners = listeners.get(target);
-        if (targetListeners != null && !targetListeners.isEmpty()) {
-            for (Function<AliyunOSSWatchEvent, Boolean> listener : targetListeners) {
-                try {
-                    executor.submit(() -> {
-                        if (Boolean.FALSE.equals(listener.apply(event))) {
-                            targetListeners.remove(listener);
-                            unwatch(target);
-                        }
-                    });
-                } catch (Throwable ignore) {
+        for (AliyunOSSWatchListener listener : target.getListeners()) {
+            if (listener.isBatch()) {
+                batches.computeIfAbsent(listener, self -> new ArrayList<>()).add(event);
+            } else {
+                listener.offer(Collections.singletonList(event));
+            }
+        }
+    }
+
+    /**
+     * leader发布本轮变更事件，单机模式或发布成功返回true，已不是leader返回false
+     */
+    boolean publish(List<WatchEvent.Kind<Path>> kinds, List<String> targetUris) {
+        return cluster == null || cluster.publish(kinds, targetUris);
+    }
+
+    /**
+     * 分发从集群变更日志读取的事件，只分发本节点监听范围内的事件
+     */
+    void dispatchClusterEvents(List<WatchEvent.Kind<Path>> kinds, List<String> targetUris) {
+        Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < kinds.size(); i++) {
+            String targetUri = targetUris.get(i);
+            for (AliyunOSSWatchTask task : tasks) {
+                String root = task.getWatchUri();
+                if (targetUri.startsWith(root)) {
+                    dispatchEvents(root, kinds.get(i), targetUri, batches);
+                    break;
                 }
             }
         }
+        flush(batches);
+    }
+
+    /**
+     * 分发推送事件源的变更，只分发本节点监听范围内的事件
+     */
+    void dispatchChanges(List<AliyunOSSChange> changes) {
+        Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches = new LinkedHashMap<>();
+        for (AliyunOSSChange change : changes) {
+            for (AliyunOSSWatchTask task : tasks) {
+                if (!task.getWatchBucketName().equals(change.getBucketName())) {
+                    continue;
+                }
+                String root = task.getWatchUri();
+                String targetUri = task.getWatchBucketUri() + change.getObjectKey();
+                if (targetUri.startsWith(root)) {
+                    dispatchEvents(root, change.getKind(), targetUri, batches);
+                    break;
+                }
+            }
+        }
+        flush(batches);
+    }
+
+    /**
+     * 投递本轮批量回调事件
+     */
+    void flush(Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches) {
+        for (Map.Entry<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> e : batches.entrySet()) {
+            e.getKey().offer(e.getValue());
+        }
     }
 
     @Override
@@ -216,18 +457,23 @@ public class AliyunOSSWatchService implements WatchService {
         // debug
         StringBuilder buffer = new StringBuilder();
         buffer.append("[WatchService][1] 监听任务：").append(tasks.size()).append("\n");
+        HashedWheelTimer timer = fileSystemProvider.getWatchTimer();
+        buffer.append("[WatchService][1] 轮询平均延迟：").append(timer.getAverageLag())
+                .append("ms，最大延迟：").append(timer.getMaxLag()).append("ms\n");
         for (AliyunOSSWatchTask task : tasks) {
             buffer.append(task);
         }
-        buffer.append("[WatchService][2] 监听点：").append(watchKeys.size()).append("\n");
-        for (Map.Entry<String, List<AliyunOSSWatchKey>> e : watchKeys.entrySet()) {
-            buffer.append(e.getValue().size()).append("\t").append(e.getKey()).append("\n");
+        watchPointsLock.readLock().lock();
+        try {
+            buffer.append("[WatchService][2] 监听点：").append(watchPoints.size()).append("\n");
+            watchPoints.forEach((uri, watchPoint) -> buffer
+                    .append(watchPoint.getWatchKeys().size()).append("\t")
+                    .append(watchPoint.getListeners().size()).append("\t")
+                    .append(uri).append("\n"));
+        } finally {
+            watchPointsLock.readLock().unlock();
         }
         buffer.append("[WatchService][3] 监听点队列：").append(watchKeyQueue.size()).append("\n");
-        buffer.append("[WatchService][4] 监听回调：").append(listeners.size()).append("\n");
-        for (Map.Entry<String, List<Function<AliyunOSSWatchEvent, Boolean>>> e : listeners.entrySet()) {
-            buffer.append(e.getValue().size()).append("\t").append(e.getKey()).append("\n");
-        }
         return buffer.toString();
     }
 }
@@ -0,0 +1,111 @@
+package cc.whohow.fs.aliyun;
+
+import cc.whohow.fs.HashedWheelTimer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 监听任务分片，监听根目录下Key范围(lo, hi]，拥有独立的快照及自适应轮询间隔
+ */
+public class AliyunOSSWatchShard {
+    private final String lo; // 起始Key（不含），null为从头开始
+    private final String hi; // 结束Key（含），null为到末尾
+    private final byte[] hiBytes; // 结束Key UTF-8，与OSS字节序比较
+    private volatile AliyunOSSWatchSnapshot snapshot; // 分片快照
+    private volatile long interval; // 当前轮询间隔（毫秒）
+    private volatile double changeRate; // 变化速率（事件数/秒，指数加权平均）
+    private volatile long lastPollTime; // 上次轮询时间
+    private volatile long lag = -1; // 最近一次轮询实际开始时间相对计划时间的延迟（毫秒）
+    volatile HashedWheelTimer.Timeout timeout; // 下次轮询
+
+    public AliyunOSSWatchShard(String lo, String hi, AliyunOSSWatchSnapshot snapshot, long interval) {
+        this.lo = lo;
+        this.hi = hi;
+        this.hiBytes = hi == null ? null : hi.getBytes(StandardCharsets.UTF_8);
+        this.snapshot = snapshot;
+        this.interval = interval;
+        this.lastPollTime = System.currentTimeMillis();
+    }
+
+    public String getLo() {
+        return lo;
+    }
+
+    public String getHi() {
+        return hi;
+    }
+
+    /**
+     * Key（UTF-8）是否超出分片上界
+     */
+    public boolean isAfter(byte[] key) {
+        return hiBytes != null && AliyunOSSWatchSnapshot.compare(key, key.length, hiBytes, hiBytes.length) > 0;
+    }
+
+    /**
+     * 快照游标当前Key是否超出分片上界
+     */
+    public boolean isAfter(AliyunOSSWatchSnapshot.Cursor cursor) {
+        return hiBytes != null && cursor.compareTo(hiBytes) > 0;
+    }
+
+    public AliyunOSSWatchSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(AliyunOSSWatchSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    public double getChangeRate() {
+        return changeRate;
+    }
+
+    /**
+     * 最近一次轮询实际开始时间相对计划时间的延迟（毫秒），未轮询时为-1
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * 轮询开始时（重新调度前）记录本次轮询的延迟
+     */
+    void recordLag() {
+        HashedWheelTimer.Timeout t = timeout;
+        if (t != null && t.getLag() >= 0) {
+            lag = t.getLag();
+        }
+    }
+
+    /**
+     * 按轮询结果调整下次轮询间隔：发现变化后减半，无变化时加倍
+     */
+    long adapt(int changes, long minInterval, long maxInterval) {
+        long now = System.currentTimeMillis();
+        if (lastPollTime > 0) {
+            double rate = changes * 1000.0 / Math.max(1, now - lastPollTime);
+            changeRate = changeRate * 0.7 + rate * 0.3;
+            if (changes > 0) {
+                interval = Math.max(minInterval, interval / 2);
+            } else {
+                interval = Math.min(maxInterval, interval * 2);
+            }
+        }
+        lastPollTime = now;
+        return interval;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + lo + ", " + hi + "] " + (snapshot == null ? 0 : snapshot.size()) + " " + interval + "ms";
+    }
+}
@@ -0,0 +1,273 @@
+package cc.whohow.fs.aliyun;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 监听快照，按OSS字典序（UTF-8字节序）保存对象Key及指纹。
+ * Key前缀压缩存储：与上一个Key共享前缀长度、后缀长度（变长整数）及后缀UTF-8字节；指纹为ETag与大小的64位哈希。
+ */
+public class AliyunOSSWatchSnapshot {
+    private static final int MAGIC = 0x4F535357; // OSSW
+    private static final int VERSION = 1;
+
+    private final byte[] keys; // 前缀压缩Key
+    private final int keysLength;
+    private final long[] fingerprints; // 对象指纹
+    private final int size; // 对象数
+
+    private AliyunOSSWatchSnapshot(byte[] keys, int keysLength, long[] fingerprints, int size) {
+        this.keys = keys;
+        this.keysLength = keysLength;
+        this.fingerprints = fingerprints;
+        this.size = size;
+    }
+
+    /**
+     * 对象数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 占用字节数（估算）
+     */
+    public long getMemoryUsage() {
+        return keys.length + fingerprints.length * 8L;
+    }
+
+    /**
+     * 按顺序遍历
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * 写入二进制格式：魔数、版本、对象数、Key字节数、前缀压缩Key、指纹
+     */
+    public void writeTo(DataOutputStream stream) throws IOException {
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        stream.writeInt(size);
+        stream.writeInt(keysLength);
+        stream.write(keys, 0, keysLength);
+        for (int i = 0; i < size; i++) {
+            stream.writeLong(fingerprints[i]);
+        }
+    }
+
+    /**
+     * 读取二进制格式
+     */
+    public static AliyunOSSWatchSnapshot readFrom(DataInputStream stream) throws IOException {
+        if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+            throw new IOException("InvalidSnapshot");
+        }
+        int size = stream.readInt();
+        int keysLength = stream.readInt();
+        if (size < 0 || keysLength < 0) {
+            throw new IOException("InvalidSnapshot");
+        }
+        byte[] keys = new byte[keysLength];
+        stream.readFully(keys);
+        long[] fingerprints = new long[size];
+        for (int i = 0; i < size; i++) {
+            fingerprints[i] = stream.readLong();
+        }
+        return new AliyunOSSWatchSnapshot(keys, keysLength, fingerprints, size);
+    }
+
+    /**
+     * 对象指纹，ETag或大小变化时改变
+     */
+    public static long fingerprint(String eTag, long size) {
+        // FNV-1a
+        long h = 0xcbf29ce484222325L;
+        if (eTag != null) {
+            for (int i = 0; i < eTag.length(); i++) {
+                h ^= eTag.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= size * 0x9E3779B97F4A7C15L;
+        // MurmurHash3 fmix64
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 按字节无符号比较，与OSS字典序一致
+     */
+    static int compare(byte[] a, int aLength, byte[] b, int bLength) {
+        int n = Math.min(aLength, bLength);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xff) - (b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * 快照构建器，Key需按字典序添加
+     */
+    public static class Builder {
+        private byte[] keys;
+        private int keysLength;
+        private long[] fingerprints;
+        private int size;
+        private byte[] previous = new byte[256]; // 上一个Key
+        private int previousLength;
+
+        public Builder() {
+            this(4096, 64);
+        }
+
+        /**
+         * 按上次快照预估容量
+         */
+        public Builder(AliyunOSSWatchSnapshot estimate) {
+            this(estimate == null ? 4096 : Math.max(16, estimate.keysLength),
+                    estimate == null ? 64 : Math.max(16, estimate.size));
+        }
+
+        private Builder(int keysCapacity, int capacity) {
+            this.keys = new byte[keysCapacity];
+            this.fingerprints = new long[capacity];
+        }
+
+        public Builder add(byte[] key, long fingerprint) {
+            return add(key, key.length, fingerprint);
+        }
+
+        /**
+         * 添加游标当前对象
+         */
+        public Builder add(Cursor cursor) {
+            return add(cursor.key, cursor.keyLength, cursor.fingerprint());
+        }
+
+        private Builder add(byte[] key, int length, long fingerprint) {
+            int shared = 0;
+            int n = Math.min(previousLength, length);
+            while (shared < n && previous[shared] == key[shared]) {
+                shared++;
+            }
+            int suffix = length - shared;
+            ensureKeysCapacity(10 + suffix);
+            writeVarInt(shared);
+            writeVarInt(suffix);
+            System.arraycopy(key, shared, keys, keysLength, suffix);
+            keysLength += suffix;
+
+            if (size == fingerprints.length) {
+                fingerprints = Arrays.copyOf(fingerprints, size * 2);
+            }
+            fingerprints[size++] = fingerprint;
+
+            if (previous.length < length) {
+                previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+            }
+            System.arraycopy(key, shared, previous, shared, suffix);
+            previousLength = length;
+            return this;
+        }
+
+        public AliyunOSSWatchSnapshot build() {
+            return new AliyunOSSWatchSnapshot(Arrays.copyOf(keys, keysLength), keysLength,
+                    Arrays.copyOf(fingerprints, size), size);
+        }
+
+        private void ensureKeysCapacity(int n) {
+            if (keysLength + n > keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(keysLength + n, keys.length * 2));
+            }
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7f) != 0) {
+                keys[keysLength++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            keys[keysLength++] = (byte) value;
+        }
+    }
+
+    /**
+     * 快照游标，初始位于第一个对象之前
+     */
+    public static class Cursor {
+        private final AliyunOSSWatchSnapshot snapshot;
+        private int offset; // keys读取位置
+        private int index = -1; // 当前对象序号
+        private byte[] key = new byte[256]; // 当前Key
+        private int keyLength;
+
+        private Cursor(AliyunOSSWatchSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * 移动到下一个对象，没有更多对象返回false
+         */
+        public boolean next() {
+            if (index + 1 >= snapshot.size) {
+                index = snapshot.size;
+                return false;
+            }
+            index++;
+            int shared = readVarInt();
+            int suffix = readVarInt();
+            if (key.length < shared + suffix) {
+                key = Arrays.copyOf(key, Math.max(shared + suffix, key.length * 2));
+            }
+            System.arraycopy(snapshot.keys, offset, key, shared, suffix);
+            offset += suffix;
+            keyLength = shared + suffix;
+            return true;
+        }
+
+        /**
+         * 是否位于有效对象
+         */
+        public boolean isValid() {
+            return index >= 0 && index < snapshot.size;
+        }
+
+        /**
+         * 当前Key与指定Key（UTF-8）比较
+         */
+        public int compareTo(byte[] other) {
+            return compare(key, keyLength, other, other.length);
+        }
+
+        public String key() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        public long fingerprint() {
+            return snapshot.fingerprints[index];
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = snapshot.keys[offset++];
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
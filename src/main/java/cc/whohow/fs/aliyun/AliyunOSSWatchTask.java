@@ -1,32 +1,67 @@
 package cc.whohow.fs.aliyun;
 
+import cc.whohow.fs.HashedWheelTimer;
 import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.ListObjectsRequest;
 import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.ObjectListing;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * 阿里云文件监听任务
+ * 阿里云文件监听任务。
+ * 监听根目录按Key范围拆分为多个分片（watch-shards），各分片独立快照、并发轮询、独立自适应间隔；
+ * 监听根目录变化时整体比较一次，并重新拆分。
  */
 public class AliyunOSSWatchTask implements Runnable {
+    private static final int CHECKPOINT_VERSION = 2;
+
     private final AliyunOSSWatchService watchService;
     private final OSSClient client;
     private final String watchBucketUri;
     private final String watchBucketName;
-    private volatile ScheduledFuture<?> future;
+    private final int shardCount; // 期望分片数
+    private volatile HashedWheelTimer timer;
+    private volatile HashedWheelTimer.Timeout timeout; // 重新拆分任务
+    private volatile boolean stopped;
+    private volatile long minInterval; // 最小轮询间隔（毫秒）
+    private volatile long maxInterval; // 最大轮询间隔（毫秒）
+    private volatile long initialInterval; // 初始轮询间隔（毫秒）
+    private volatile boolean leading; // 快照是否由本节点作为轮询节点持续更新，集群模式下成为leader后需先静默重建快照
 
     private final NavigableSet<String> watchObjectKeys = new ConcurrentSkipListSet<>(); // 需监听的ObjectKey集合
     private volatile String watchObjectKey; // 监听根目录
-    private volatile Map<String, OSSObjectSummary> watchObjects; // 监听对象集合
+    private volatile List<AliyunOSSWatchShard> shards = Collections.emptyList(); // 分片，按Key范围排序
+    private final ReadWriteLock shardsLock = new ReentrantReadWriteLock(); // 分片轮询（读）与重新拆分（写）互斥
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private final File checkpoint; // 快照检查点文件，null为不保存
+    private volatile boolean checkpointLoaded;
+    private final AtomicBoolean checkpointDirty = new AtomicBoolean(false); // 已有变化未保存检查点
+    private volatile HashedWheelTimer.Timeout checkpointTimeout; // 保存检查点任务
+    private List<String> checkpointSplitPoints; // 检查点中的分割点
 
     public AliyunOSSWatchTask(AliyunOSSWatchService watchService, OSSClient client,
                               String watchBucketName, String watchEndpoint, String watchObjectKey) {
+        this(watchService, client, watchBucketName, watchEndpoint, watchObjectKey, null);
+    }
+
+    /**
+     * @param checkpointDirectory 快照检查点目录，每次轮询后保存快照，重启后首次轮询与检查点比较，补发停机期间的事件
+     */
+    public AliyunOSSWatchTask(AliyunOSSWatchService watchService, OSSClient client,
+                              String watchBucketName, String watchEndpoint, String watchObjectKey,
+                              File checkpointDirectory) {
         if (!watchObjectKey.endsWith("/")) {
             throw new IllegalArgumentException();
         }
@@ -34,8 +69,12 @@ public class AliyunOSSWatchTask implements Runnable {
         this.client = client;
         this.watchBucketUri = String.format("http://%s.%s/", watchBucketName, watchEndpoint);
         this.watchBucketName = watchBucketName;
+        this.shardCount = watchService.getWatchShards();
         this.watchObjectKeys.add(watchObjectKey);
         this.watchObjectKey = watchObjectKey;
+        this.leading = watchService.getCluster() == null;
+        this.checkpoint = checkpointDirectory == null ? null : new File(checkpointDirectory,
+                UUID.nameUUIDFromBytes((watchBucketUri + watchObjectKey).getBytes(StandardCharsets.UTF_8)) + ".watch");
     }
 
     /**
@@ -57,6 +96,10 @@ public class AliyunOSSWatchTask implements Runnable {
         return watchBucketUri;
     }
 
+    public String getWatchBucketName() {
+        return watchBucketName;
+    }
+
     /**
      * 新增监听对象
      */
@@ -84,88 +127,547 @@ public class AliyunOSSWatchTask implements Runnable {
     }
 
     /**
-     * 开始
+     * 开始，固定间隔轮询
+     */
+    public void start(HashedWheelTimer timer, long interval, TimeUnit unit) {
+        start(timer, interval, interval, interval, unit);
+    }
+
+    /**
+     * 开始，自适应间隔轮询：分片发现变化后间隔减半，无变化时间隔加倍，限制在[minInterval, maxInterval]内
      */
-    public void start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
-        future = executor.scheduleWithFixedDelay(this, 0, interval, unit);
+    public synchronized void start(HashedWheelTimer timer,
+                                   long interval, long minInterval, long maxInterval, TimeUnit unit) {
+        if (minInterval <= 0 || minInterval > maxInterval) {
+            throw new IllegalArgumentException();
+        }
+        this.timer = timer;
+        this.minInterval = unit.toMillis(minInterval);
+        this.maxInterval = unit.toMillis(maxInterval);
+        this.initialInterval = Math.max(this.minInterval, Math.min(this.maxInterval, unit.toMillis(interval)));
+        scheduleRebuild();
+    }
+
+    /**
+     * 调整运行中任务的轮询间隔，各分片间隔限制到新范围内，等待中的下次轮询按新间隔重新计时
+     */
+    public synchronized void retime(long interval, long minInterval, long maxInterval, TimeUnit unit) {
+        if (minInterval <= 0 || minInterval > maxInterval) {
+            throw new IllegalArgumentException();
+        }
+        this.minInterval = unit.toMillis(minInterval);
+        this.maxInterval = unit.toMillis(maxInterval);
+        this.initialInterval = Math.max(this.minInterval, Math.min(this.maxInterval, unit.toMillis(interval)));
+        if (timer == null || stopped) {
+            return;
+        }
+        for (AliyunOSSWatchShard shard : shards) {
+            shard.setInterval(Math.max(this.minInterval, Math.min(this.maxInterval, shard.getInterval())));
+            HashedWheelTimer.Timeout t = shard.timeout;
+            // 正在轮询的分片结束后按新范围调度
+            if (t != null && t.cancel()) {
+                schedule(shard, shard.getInterval());
+            }
+        }
     }
 
     /**
      * 停止
      */
-    public void stop() {
-        future.cancel(true);
+    public synchronized void stop() {
+        stopped = true;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        if (checkpointTimeout != null) {
+            checkpointTimeout.cancel();
+        }
+        if (checkpointDirty.getAndSet(false)) {
+            saveCheckpoint(watchObjectKey, shards);
+        }
+        for (AliyunOSSWatchShard shard : shards) {
+            HashedWheelTimer.Timeout t = shard.timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
     }
 
-    @Override
-    public void run() {
-        // 保存上次状态
-        String prevWatchObjectKey = watchObjectKey;
-        Map<String, OSSObjectSummary> prevWatchObjects = watchObjects;
+    /**
+     * 分片
+     */
+    public List<AliyunOSSWatchShard> getShards() {
+        return shards;
+    }
 
-        // 读取当前状态
+    /**
+     * 当前最短轮询间隔（毫秒）
+     */
+    public long getInterval() {
+        long interval = Long.MAX_VALUE;
+        for (AliyunOSSWatchShard shard : shards) {
+            interval = Math.min(interval, shard.getInterval());
+        }
+        return interval == Long.MAX_VALUE ? initialInterval : interval;
+    }
+
+    /**
+     * 变化速率（事件数/秒，各分片指数加权平均之和）
+     */
+    public double getChangeRate() {
+        double changeRate = 0;
+        for (AliyunOSSWatchShard shard : shards) {
+            changeRate += shard.getChangeRate();
+        }
+        return changeRate;
+    }
+
+    /**
+     * 各分片最近一次轮询实际开始时间相对计划时间的最大延迟（毫秒）
+     */
+    public long getLag() {
+        long lag = -1;
+        for (AliyunOSSWatchShard shard : shards) {
+            lag = Math.max(lag, shard.getLag());
+        }
+        return lag;
+    }
+
+    private synchronized void scheduleRebuild() {
+        if (!stopped && rebuildScheduled.compareAndSet(false, true)) {
+            timeout = timer.schedule(this::rebuild, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 整体比较一次并重新拆分分片：首次轮询及监听根目录变化时执行
+     */
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        List<AliyunOSSWatchShard> newShards = null;
+        shardsLock.writeLock().lock();
+        try {
+            if (stopped) {
+                return;
+            }
+            for (AliyunOSSWatchShard shard : shards) {
+                HashedWheelTimer.Timeout t = shard.timeout;
+                if (t != null) {
+                    t.cancel();
+                }
+            }
+            // 集群模式下非leader不轮询，只保持当前状态；成为leader后静默重建快照，不重复分发其他leader已发布的事件
+            if (watchService.isPolling()) {
+                shards = newShards = rebuildShards(!leading);
+                leading = true;
+            } else {
+                leading = false;
+            }
+        } catch (Throwable e) {
+            // 失败后保留原分片，稍后重试
+        } finally {
+            shardsLock.writeLock().unlock();
+        }
+        if (newShards == null) {
+            synchronized (this) {
+                if (!stopped) {
+                    timeout = timer.schedule(this::rebuild, initialInterval, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+        for (AliyunOSSWatchShard shard : newShards) {
+            schedule(shard, shard.getInterval());
+        }
+    }
+
+    /**
+     * @param silent 静默重建：只更新快照，不分发事件
+     */
+    private List<AliyunOSSWatchShard> rebuildShards(boolean silent) {
+        if (!checkpointLoaded) {
+            loadCheckpoint();
+            checkpointLoaded = true;
+        }
+        String prevWatchObjectKey = watchObjectKey;
+        AliyunOSSWatchSnapshot prevSnapshot = concat(shards);
         String currWatchObjectKey = watchObjectKeys.first();
-        Map<String, OSSObjectSummary> currWatchObjects = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                new AliyunOSSObjectSummaryIterator(client, watchBucketName, currWatchObjectKey), 0), false)
-                .collect(Collectors.toMap(OSSObjectSummary::getKey, self -> self));
 
-        // 更新状态
+        List<WatchEvent.Kind<Path>> kinds = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        AliyunOSSWatchSnapshot snapshot = diff(prevWatchObjectKey, currWatchObjectKey, prevSnapshot, null, kinds, keys);
+
+        List<String> splitPoints = checkpointSplitPoints;
+        checkpointSplitPoints = null;
+        if (splitPoints == null || !currWatchObjectKey.equals(prevWatchObjectKey) || splitPoints.size() + 1 != shardCount) {
+            splitPoints = getSplitPoints(currWatchObjectKey);
+        }
+        List<AliyunOSSWatchShard> newShards = split(snapshot, splitPoints);
+        if (!silent && !dispatch(prevWatchObjectKey, currWatchObjectKey, kinds, keys)) {
+            // 未能发布到集群变更日志，保留原分片，稍后重试
+            throw new IllegalStateException("NotLeader");
+        }
         watchObjectKey = currWatchObjectKey;
-        watchObjects  = currWatchObjects;
+        if (silent || prevSnapshot == null || !currWatchObjectKey.equals(prevWatchObjectKey) || !kinds.isEmpty()) {
+            saveCheckpoint(currWatchObjectKey, newShards);
+        }
+        return newShards;
+    }
 
-        if (prevWatchObjects == null) {
+    /**
+     * 分割点：按分隔符遍历根目录，子目录足够多且一页可列完时均匀选取子目录；否则采样Key分布
+     */
+    private List<String> getSplitPoints(String root) {
+        if (shardCount < 2) {
+            return Collections.emptyList();
+        }
+        ObjectListing objectListing = client.listObjects(new ListObjectsRequest(watchBucketName, root, null, "/", 1000));
+        List<String> commonPrefixes = objectListing.getCommonPrefixes();
+        if (!objectListing.isTruncated() && commonPrefixes.size() >= shardCount) {
+            List<String> splitPoints = new ArrayList<>(shardCount - 1);
+            for (int i = 1; i < shardCount; i++) {
+                splitPoints.add(commonPrefixes.get(i * commonPrefixes.size() / shardCount));
+            }
+            return splitPoints;
+        }
+        return AliyunOSSKeyRangeSpliterator.sample(client, watchBucketName, root, shardCount);
+    }
+
+    private List<AliyunOSSWatchShard> split(AliyunOSSWatchSnapshot snapshot, List<String> splitPoints) {
+        List<AliyunOSSWatchShard> newShards = new ArrayList<>(splitPoints.size() + 1);
+        AliyunOSSWatchSnapshot.Cursor cursor = snapshot.cursor();
+        boolean hasNext = cursor.next();
+        String lo = null;
+        for (int i = 0; i <= splitPoints.size(); i++) {
+            String hi = i < splitPoints.size() ? splitPoints.get(i) : null;
+            AliyunOSSWatchShard shard = new AliyunOSSWatchShard(lo, hi, null, initialInterval);
+            AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder();
+            while (hasNext && !shard.isAfter(cursor)) {
+                builder.add(cursor);
+                hasNext = cursor.next();
+            }
+            shard.setSnapshot(builder.build());
+            newShards.add(shard);
+            lo = hi;
+        }
+        return newShards;
+    }
+
+    private static AliyunOSSWatchSnapshot concat(List<AliyunOSSWatchShard> shards) {
+        if (shards.isEmpty()) {
+            return null;
+        }
+        if (shards.size() == 1) {
+            return shards.get(0).getSnapshot();
+        }
+        AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder();
+        for (AliyunOSSWatchShard shard : shards) {
+            AliyunOSSWatchSnapshot.Cursor cursor = shard.getSnapshot().cursor();
+            while (cursor.next()) {
+                builder.add(cursor);
+            }
+        }
+        return builder.build();
+    }
+
+    private void schedule(AliyunOSSWatchShard shard, long delay) {
+        synchronized (this) {
+            if (!stopped) {
+                shard.timeout = timer.schedule(() -> poll(shard), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 轮询分片并按结果调整下次轮询间隔，轮询失败时按无变化处理；监听根目录变化时改为重新拆分
+     */
+    private void poll(AliyunOSSWatchShard shard) {
+        shard.recordLag();
+        int changes = 0;
+        shardsLock.readLock().lock();
+        try {
+            if (stopped || !shards.contains(shard)) {
+                return;
+            }
+            if (!watchObjectKeys.first().equals(watchObjectKey)) {
+                scheduleRebuild();
+                return;
+            }
+            // 集群模式下只有leader轮询，刚成为leader时先静默重建快照
+            if (!watchService.isPolling()) {
+                leading = false;
+            } else if (!leading) {
+                scheduleRebuild();
+                return;
+            } else {
+                changes = poll(shard, true);
+            }
+        } catch (Throwable ignore) {
+        } finally {
+            shardsLock.readLock().unlock();
+        }
+        if (!rebuildScheduled.get() && shards.contains(shard)) {
+            schedule(shard, shard.adapt(changes, minInterval, maxInterval));
+        }
+    }
+
+    /**
+     * 轮询分片，返回事件数。事件发布到集群变更日志成功后才更新快照，发布失败时下次轮询重新比较并发布
+     */
+    private int poll(AliyunOSSWatchShard shard, boolean save) {
+        String root = watchObjectKey;
+        List<WatchEvent.Kind<Path>> kinds = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        AliyunOSSWatchSnapshot snapshot = diff(root, root, shard.getSnapshot(), shard, kinds, keys);
+        if (!dispatch(root, root, kinds, keys)) {
+            leading = false;
+            return 0;
+        }
+        shard.setSnapshot(snapshot);
+        if (save && !kinds.isEmpty()) {
+            scheduleCheckpoint();
+        }
+        return kinds.size();
+    }
+
+    /**
+     * 延迟保存检查点，最小轮询间隔内各分片的变化合并保存一次
+     */
+    private synchronized void scheduleCheckpoint() {
+        if (!stopped && checkpoint != null && checkpointDirty.compareAndSet(false, true)) {
+            checkpointTimeout = timer.schedule(this::flushCheckpoint, minInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushCheckpoint() {
+        shardsLock.readLock().lock();
+        try {
+            if (checkpointDirty.getAndSet(false)) {
+                saveCheckpoint(watchObjectKey, shards);
+            }
+        } finally {
+            shardsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 同步轮询一次所有分片
+     */
+    @Override
+    public void run() {
+        if (shards.isEmpty() || !watchObjectKeys.first().equals(watchObjectKey)) {
+            rebuild();
             return;
         }
+        shardsLock.readLock().lock();
+        try {
+            int changes = 0;
+            for (AliyunOSSWatchShard shard : shards) {
+                changes += poll(shard, false);
+            }
+            if (changes > 0) {
+                checkpointDirty.set(false);
+                saveCheckpoint(watchObjectKey, shards);
+            }
+        } finally {
+            shardsLock.readLock().unlock();
+        }
+    }
 
+    /**
+     * 读取当前状态并与上次快照按Key顺序归并比较，返回当前快照
+     *
+     * @param shard 分片范围，null为整个根目录
+     */
+    private AliyunOSSWatchSnapshot diff(String prevWatchObjectKey, String currWatchObjectKey,
+                                       AliyunOSSWatchSnapshot prevSnapshot, AliyunOSSWatchShard shard,
+                                       List<WatchEvent.Kind<Path>> kinds, List<String> keys) {
+        // 分片遍历超出范围时提前结束，关闭时取消预取
+        try (AliyunOSSObjectSummaryIterator iterator = watchService.provider().newObjectSummaryIterator(
+                client, watchBucketName, currWatchObjectKey, shard == null ? null : shard.getLo(), null)) {
+            return merge(iterator, prevWatchObjectKey, currWatchObjectKey, prevSnapshot, shard, kinds, keys);
+        }
+    }
+
+    /**
+     * 按Key顺序归并当前遍历结果与上次快照，产生事件，返回当前快照
+     *
+     * @param iterator 当前遍历结果，按OSS字典序，从分片起始Key之后开始
+     * @param shard    分片范围，null为整个根目录
+     */
+    static AliyunOSSWatchSnapshot merge(Iterator<OSSObjectSummary> iterator,
+                                        String prevWatchObjectKey, String currWatchObjectKey,
+                                        AliyunOSSWatchSnapshot prevSnapshot, AliyunOSSWatchShard shard,
+                                        List<WatchEvent.Kind<Path>> kinds, List<String> keys) {
         boolean watchObjectKeyNotChange = currWatchObjectKey.equals(prevWatchObjectKey);
-        for (OSSObjectSummary c : currWatchObjects.values()) {
-            OSSObjectSummary p = prevWatchObjects.remove(c.getKey());
+        AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder(prevSnapshot);
+        AliyunOSSWatchSnapshot.Cursor p = prevSnapshot == null ? null : prevSnapshot.cursor();
+        boolean hasPrev = p != null && p.next();
+
+        while (iterator.hasNext()) {
+            OSSObjectSummary c = iterator.next();
+            byte[] key = c.getKey().getBytes(StandardCharsets.UTF_8);
+            if (shard != null && shard.isAfter(key)) {
+                break;
+            }
+            long fingerprint = AliyunOSSWatchSnapshot.fingerprint(c.getETag(), c.getSize());
+            builder.add(key, fingerprint);
             if (p == null) {
-                // 上次记录中文件不存在，文件新增或监听范围扩大
-                if (watchObjectKeyNotChange || c.getKey().startsWith(prevWatchObjectKey)) {
-                    dispatchEvents(prevWatchObjectKey, StandardWatchEventKinds.ENTRY_CREATE, c);
+                continue;
+            }
+            int cmp = 1;
+            while (hasPrev && (cmp = p.compareTo(key)) < 0) {
+                // 本次文件不存在，文件被删除或监听范围缩小
+                deleted(p.key(), currWatchObjectKey, watchObjectKeyNotChange, kinds, keys);
+                hasPrev = p.next();
+            }
+            if (hasPrev && cmp == 0) {
+                if (p.fingerprint() != fingerprint) {
+                    // ETag变化，文件被修改
+                    kinds.add(StandardWatchEventKinds.ENTRY_MODIFY);
+                    keys.add(c.getKey());
                 }
-            } else if (!Objects.equals(p.getETag(), c.getETag())) {
-                // ETag变化，文件被修改
-                dispatchEvents(prevWatchObjectKey, StandardWatchEventKinds.ENTRY_MODIFY, c);
+                hasPrev = p.next();
+            } else if (watchObjectKeyNotChange || c.getKey().startsWith(prevWatchObjectKey)) {
+                // 上次记录中文件不存在，文件新增或监听范围扩大
+                kinds.add(StandardWatchEventKinds.ENTRY_CREATE);
+                keys.add(c.getKey());
             }
         }
-        for (OSSObjectSummary p : prevWatchObjects.values()) {
-            // 本次文件不存在，文件被删除或监听范围缩小
-            if (watchObjectKeyNotChange || p.getKey().startsWith(currWatchObjectKey)) {
-                dispatchEvents(currWatchObjectKey, StandardWatchEventKinds.ENTRY_DELETE, p);
+        while (hasPrev) {
+            deleted(p.key(), currWatchObjectKey, watchObjectKeyNotChange, kinds, keys);
+            hasPrev = p.next();
+        }
+        return builder.build();
+    }
+
+    /**
+     * 遍历完成后分发，遍历失败时不产生事件。集群模式下先发布到变更日志，发布成功后再分发给本地监听点；
+     * 已不是leader时返回false，写入失败时抛出异常，均不分发
+     */
+    private boolean dispatch(String prevWatchObjectKey, String currWatchObjectKey,
+                             List<WatchEvent.Kind<Path>> kinds, List<String> keys) {
+        if (!kinds.isEmpty() && watchService.getCluster() != null) {
+            List<String> uris = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                uris.add(watchBucketUri + key);
+            }
+            if (!watchService.publish(kinds, uris)) {
+                return false;
             }
         }
+        Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < kinds.size(); i++) {
+            WatchEvent.Kind<Path> kind = kinds.get(i);
+            dispatchEvents(kind == StandardWatchEventKinds.ENTRY_DELETE ? currWatchObjectKey : prevWatchObjectKey,
+                    kind, keys.get(i), batches);
+        }
+        watchService.flush(batches);
+        return true;
+    }
+
+    public File getCheckpoint() {
+        return checkpoint;
     }
 
     /**
-     * 事件分发
+     * 读取检查点作为上次状态，检查点损坏时忽略
      */
-    private void dispatchEvents(String root, WatchEvent.Kind<Path> kind, OSSObjectSummary object) {
-        AliyunOSSWatchEvent event = new AliyunOSSWatchEvent(kind, watchService.provider(), watchBucketUri + object.getKey(), null);
-        for (String watchObjectKey : watchObjectKeys.tailSet(root)) {
-            // 只通知监听范围内的事件
-            if (watchObjectKey.startsWith(root)) {
-                if (watchObjectKey.endsWith("/")) {
-                    if (object.getKey().startsWith(watchObjectKey)) {
-                        watchService.dispatchEvents(watchBucketUri + watchObjectKey, event);
-                    }
-                } else {
-                    if (object.getKey().equals(watchObjectKey)) {
-                        watchService.dispatchEvents(watchBucketUri + watchObjectKey, event);
+    private void loadCheckpoint() {
+        if (checkpoint == null || !checkpoint.isFile()) {
+            return;
+        }
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpoint)))) {
+            if (stream.readInt() != CHECKPOINT_VERSION) {
+                return;
+            }
+            String root = stream.readUTF();
+            int n = stream.readInt();
+            List<String> splitPoints = new ArrayList<>();
+            List<AliyunOSSWatchShard> loaded = new ArrayList<>(n);
+            String lo = null;
+            for (int i = 0; i < n; i++) {
+                String hi = stream.readBoolean() ? stream.readUTF() : null;
+                if (hi != null) {
+                    splitPoints.add(hi);
+                }
+                loaded.add(new AliyunOSSWatchShard(lo, hi, AliyunOSSWatchSnapshot.readFrom(stream), initialInterval));
+                lo = hi;
+            }
+            watchObjectKey = root;
+            shards = loaded;
+            checkpointSplitPoints = splitPoints;
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * 保存检查点（根目录、各分片范围及快照），先写临时文件再替换，避免中断时损坏；保存失败不影响监听
+     */
+    private synchronized void saveCheckpoint(String root, List<AliyunOSSWatchShard> shards) {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            File directory = checkpoint.getParentFile();
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            File temp = new File(directory, checkpoint.getName() + ".tmp");
+            try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                stream.writeInt(CHECKPOINT_VERSION);
+                stream.writeUTF(root);
+                stream.writeInt(shards.size());
+                for (AliyunOSSWatchShard shard : shards) {
+                    stream.writeBoolean(shard.getHi() != null);
+                    if (shard.getHi() != null) {
+                        stream.writeUTF(shard.getHi());
                     }
+                    shard.getSnapshot().writeTo(stream);
                 }
-            } else {
-                break;
             }
+            Files.move(temp.toPath(), checkpoint.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignore) {
         }
     }
 
+    /**
+     * 删除检查点，不再监听时调用
+     */
+    public void deleteCheckpoint() {
+        if (checkpoint != null && checkpoint.exists() && !checkpoint.delete()) {
+            checkpoint.deleteOnExit();
+        }
+    }
+
+    private static void deleted(String key, String currWatchObjectKey, boolean watchObjectKeyNotChange,
+                                List<WatchEvent.Kind<Path>> kinds, List<String> keys) {
+        if (watchObjectKeyNotChange || key.startsWith(currWatchObjectKey)) {
+            kinds.add(StandardWatchEventKinds.ENTRY_DELETE);
+            keys.add(key);
+        }
+    }
+
+    /**
+     * 事件分发
+     */
+    private void dispatchEvents(String root, WatchEvent.Kind<Path> kind, String objectKey,
+                                Map<AliyunOSSWatchListener, List<AliyunOSSWatchEvent>> batches) {
+        watchService.dispatchEvents(watchBucketUri + root, kind, watchBucketUri + objectKey, batches);
+    }
+
     @Override
     public String toString() {
         // debug
+        int size = 0;
+        for (AliyunOSSWatchShard shard : shards) {
+            size += shard.getSnapshot() == null ? 0 : shard.getSnapshot().size();
+        }
         return "[WatchTask][1] 监听根目录：" + getWatchUri() + "\n" +
                 "[WatchTask][2] 监听点集合：" + watchObjectKeys + "\n" +
-                "[WatchTask][3] 监听对象数：" + watchObjects.size() + "\n";
+                "[WatchTask][3] 监听对象数：" + size + "\n" +
+                "[WatchTask][4] 轮询间隔：" + getInterval() + "ms，变化速率：" + getChangeRate() + "/s，延迟：" + getLag() + "ms\n" +
+                "[WatchTask][5] 分片：" + shards + "\n";
     }
 }
@@ -0,0 +1,119 @@
+package cc.whohow.fs;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TestFileRegionInputStream {
+    private Path file;
+    private FileChannel channel;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        file = Files.createTempFile("region", ".tmp");
+        Files.write(file, data);
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRegion() throws IOException {
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 100, 300), readAll(new FileRegionInputStream(channel, 100, 200)));
+        Assert.assertArrayEquals(data, readAll(new FileRegionInputStream(channel, 0, data.length)));
+        // 最后一个分片
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 900, 1000), readAll(new FileRegionInputStream(channel, 900, 100)));
+    }
+
+    @Test
+    public void testEmptyRegion() throws IOException {
+        FileRegionInputStream stream = new FileRegionInputStream(channel, 500, 0);
+        Assert.assertEquals(0, stream.length());
+        Assert.assertEquals(0, stream.available());
+        Assert.assertEquals(-1, stream.read());
+        Assert.assertEquals(-1, stream.read(new byte[10], 0, 10));
+        Assert.assertEquals(0, stream.read(new byte[10], 0, 0));
+    }
+
+    @Test
+    public void testRegionBeyondEndOfFile() throws IOException {
+        // 区域超出文件末尾时读到文件末尾为止
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 950, 1000), readAll(new FileRegionInputStream(channel, 950, 100)));
+        Assert.assertEquals(-1, new FileRegionInputStream(channel, 2000, 100).read());
+    }
+
+    @Test
+    public void testReadSingleByte() throws IOException {
+        FileRegionInputStream stream = new FileRegionInputStream(channel, 255, 2);
+        Assert.assertEquals(255, stream.read());
+        Assert.assertEquals(0, stream.read());
+        Assert.assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void testReadWithOffset() throws IOException {
+        FileRegionInputStream stream = new FileRegionInputStream(channel, 10, 5);
+        byte[] buffer = new byte[8];
+        // 请求长度大于剩余长度时只读到区域末尾
+        Assert.assertEquals(5, stream.read(buffer, 3, 5));
+        Assert.assertArrayEquals(new byte[]{0, 0, 0, 10, 11, 12, 13, 14}, buffer);
+        Assert.assertEquals(-1, stream.read(buffer, 0, 8));
+    }
+
+    @Test
+    public void testSkipMarkReset() throws IOException {
+        FileRegionInputStream stream = new FileRegionInputStream(channel, 100, 10);
+        Assert.assertEquals(10, stream.available());
+        Assert.assertEquals(3, stream.skip(3));
+        Assert.assertEquals(0, stream.skip(-1));
+        stream.mark(0);
+        Assert.assertEquals(103, stream.read());
+        Assert.assertEquals(6, stream.skip(100));
+        Assert.assertEquals(0, stream.available());
+        Assert.assertEquals(-1, stream.read());
+        stream.reset();
+        Assert.assertEquals(7, stream.available());
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 103, 110), readAll(stream));
+    }
+
+    @Test
+    public void testSharedChannel() throws IOException {
+        // 多个流共享同一FileChannel，关闭流不关闭FileChannel
+        FileRegionInputStream a = new FileRegionInputStream(channel, 0, 4);
+        FileRegionInputStream b = new FileRegionInputStream(channel, 4, 4);
+        Assert.assertEquals(4, b.read());
+        Assert.assertEquals(0, a.read());
+        a.close();
+        Assert.assertTrue(channel.isOpen());
+        Assert.assertEquals(5, b.read());
+        Assert.assertEquals(1, new FileRegionInputStream(channel, 1, 1).read());
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] b = new byte[7];
+        for (int n = stream.read(b); n >= 0; n = stream.read(b)) {
+            buffer.write(b, 0, n);
+        }
+        return buffer.toByteArray();
+    }
+}
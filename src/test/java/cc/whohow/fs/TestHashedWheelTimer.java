@@ -0,0 +1,134 @@
+package cc.whohow.fs;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestHashedWheelTimer {
+    private static final long TICK = 10; // 毫秒
+    private static final long TOLERANCE = 500; // 允许的最大延迟（毫秒），避免测试环境调度抖动导致失败
+
+    private ExecutorService executor;
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        // 4个槽，一圈40ms，较长延迟需要多圈
+        timer = new HashedWheelTimer(TICK, TimeUnit.MILLISECONDS, 4, executor);
+    }
+
+    @After
+    public void tearDown() {
+        timer.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExpiresAfterDelayAcrossRounds() throws Exception {
+        long[] delays = {0, 5, 15, 39, 40, 41, 95, 170};
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        long[] elapsed = new long[delays.length];
+        long begin = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            timer.schedule(() -> {
+                elapsed[index] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                latch.countDown();
+            }, delays[i], TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < delays.length; i++) {
+            // 不早于到期时间（同槽不同圈的任务不能提前执行），延迟不超过容差
+            Assert.assertTrue(delays[i] + " ran at " + elapsed[i], elapsed[i] >= delays[i]);
+            Assert.assertTrue(delays[i] + " ran at " + elapsed[i], elapsed[i] <= delays[i] + TICK + TOLERANCE);
+        }
+        Assert.assertEquals(delays.length, timer.getExecutedCount());
+    }
+
+    @Test
+    public void testSameSlotDifferentRoundsRunInOrder() throws Exception {
+        // 10ms与50ms、90ms落在同一个槽
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+        for (long delay : new long[]{90, 10, 50}) {
+            timer.schedule(() -> {
+                order.add(delay);
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(10L, 50L, 90L), order);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        HashedWheelTimer.Timeout cancelled = timer.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertTrue(cancelled.isCancelled());
+        Assert.assertFalse(cancelled.cancel());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        HashedWheelTimer.Timeout done = timer.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, runs.get());
+        // 已执行的任务不能取消
+        Assert.assertFalse(done.cancel());
+        Assert.assertFalse(done.isCancelled());
+    }
+
+    @Test
+    public void testLag() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(-1, timeout.getLag());
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        long lag = timeout.getLag();
+        Assert.assertTrue("lag " + lag, lag >= 0 && lag <= TICK + TOLERANCE);
+        Assert.assertTrue(timer.getMaxLag() >= lag);
+        Assert.assertTrue(timer.getAverageLag() >= 0);
+    }
+
+    @Test
+    public void testConcurrentStart() throws Exception {
+        int threads = 8;
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(threads);
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    ready.await();
+                    timer.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignore) {
+                }
+            });
+            thread.start();
+            list.add(thread);
+        }
+        ready.countDown();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (Thread thread : list) {
+            thread.join();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScheduleAfterClose() {
+        timer.close();
+        timer.schedule(() -> {
+        }, 10, TimeUnit.MILLISECONDS);
+    }
+}
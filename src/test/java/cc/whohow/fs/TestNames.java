@@ -0,0 +1,76 @@
+package cc.whohow.fs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestNames {
+    private static final String[] PATHS = {
+            "", "/", "a", "a/", "/a", "/a/", "a/b", "/a/b/", "a//b", "/a//b//", "a/./b", "./a", "a/.", "/./",
+            "a/../b", "/a/../", "a/..", "../a", "/../a", "a/b/../../..", "a/./../b/./", "a/b/.././c//d/",
+    };
+
+    @Test
+    public void testNormalize() {
+        for (String path : PATHS) {
+            Assert.assertEquals(path, URI.create(path).normalize().toString(), Names.normalize(path));
+        }
+    }
+
+    @Test
+    public void testNormalizeReturnsSameInstance() {
+        String path = "/a/b/c.txt";
+        Assert.assertSame(path, Names.normalize(path));
+    }
+
+    @Test
+    public void testResolve() {
+        String[] others = {"c", "c/", "./c", "../c", "../../c", "c/./d/..", ".", "..", "/c", "/c/../d"};
+        for (String base : PATHS) {
+            for (String other : others) {
+                Assert.assertEquals(base + " + " + other,
+                        URI.create(base).resolve(other).toString(), Names.resolve(base, other));
+            }
+        }
+    }
+
+    @Test
+    public void testRelativize() {
+        String[] others = {"", "c", "c/", "c/d", "./c", "../c", "c//d/"};
+        for (String base : PATHS) {
+            if (base.startsWith("//")) {
+                continue;
+            }
+            for (String other : others) {
+                String target = base.endsWith("/") || base.isEmpty() ? base + other : base + "/" + other;
+                if (target.startsWith("//")) {
+                    continue;
+                }
+                Assert.assertEquals(base + " -> " + target,
+                        URI.create(base).relativize(URI.create(target)).toString(), Names.relativize(base, target));
+            }
+            Assert.assertEquals(base + " -> /x/y", URI.create(base).relativize(URI.create("/x/y")).toString(),
+                    Names.relativize(base, "/x/y"));
+        }
+    }
+
+    @Test
+    public void testGetNames() {
+        Assert.assertEquals(Arrays.asList("a", "b"), Names.getNames("/a/b/"));
+        Assert.assertEquals(Arrays.asList("a", "b"), Names.getNames("a/b"));
+        Assert.assertEquals(Arrays.asList("a", "", "b"), Names.getNames("a//b"));
+        Assert.assertEquals(Arrays.asList(""), Names.getNames("/"));
+        Assert.assertEquals(Arrays.asList(""), Names.getNames(""));
+    }
+
+    @Test
+    public void testNameCountMatchesNames() {
+        for (String path : PATHS) {
+            List<String> names = Names.getNames(path);
+            Assert.assertEquals(path, names.size(), Names.getNameCount(path));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cc.whohow.fs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestRadixTrie {
+    @Test
+    public void testInsertAndGet() {
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        Assert.assertNull(trie.put("abc", 1));
+        Assert.assertNull(trie.put("abd", 2)); // 拆分abc为ab + c
+        Assert.assertNull(trie.put("ab", 3)); // 拆分点上赋值
+        Assert.assertNull(trie.put("a", 4));
+        Assert.assertEquals(Integer.valueOf(1), trie.put("abc", 5));
+        Assert.assertEquals(4, trie.size());
+        Assert.assertEquals(Integer.valueOf(5), trie.get("abc"));
+        Assert.assertEquals(Integer.valueOf(2), trie.get("abd"));
+        Assert.assertEquals(Integer.valueOf(3), trie.get("ab"));
+        Assert.assertEquals(Integer.valueOf(4), trie.get("a"));
+        Assert.assertNull(trie.get("abe"));
+        Assert.assertNull(trie.get("abcd"));
+        Assert.assertFalse(trie.containsKey(""));
+    }
+
+    @Test
+    public void testRemoveMergesSplitNodes() {
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        trie.put("abc", 1);
+        trie.put("abd", 2);
+        Assert.assertNull(trie.remove("ab")); // 拆分节点无值
+        Assert.assertEquals(Integer.valueOf(2), trie.remove("abd"));
+        // ab与c合并后仍可按完整Key及前缀查找
+        Assert.assertEquals(Integer.valueOf(1), trie.get("abc"));
+        Assert.assertNull(trie.get("ab"));
+        Assert.assertEquals("abc", trie.longestPrefixOf("abcdef").getKey());
+        trie.put("abx", 3);
+        Assert.assertEquals(Integer.valueOf(3), trie.get("abx"));
+        Assert.assertEquals(Integer.valueOf(1), trie.remove("abc"));
+        Assert.assertEquals(Integer.valueOf(3), trie.remove("abx"));
+        Assert.assertTrue(trie.isEmpty());
+        Assert.assertNull(trie.longestPrefixOf("abc"));
+    }
+
+    @Test
+    public void testRemoveInnerNodeWithOneChild() {
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        trie.put("a", 1);
+        trie.put("ab", 2);
+        trie.put("abc", 3);
+        Assert.assertEquals(Integer.valueOf(2), trie.remove("ab"));
+        Assert.assertEquals(Integer.valueOf(3), trie.get("abc"));
+        Assert.assertEquals(Integer.valueOf(1), trie.get("a"));
+        Assert.assertNull(trie.get("ab"));
+        Assert.assertEquals(2, trie.size());
+    }
+
+    @Test
+    public void testEmptyKey() {
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        trie.put("", 0);
+        trie.put("a", 1);
+        Assert.assertEquals("", trie.longestPrefixOf("b").getKey());
+        Assert.assertEquals("a", trie.longestPrefixOf("ab").getKey());
+        Assert.assertEquals(Integer.valueOf(0), trie.remove(""));
+        Assert.assertNull(trie.longestPrefixOf("b"));
+        Assert.assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void testLongestPrefixOf() {
+        RadixTrie<String> trie = new RadixTrie<>();
+        trie.put("http://a.oss/", "bucket");
+        trie.put("http://a.oss/dir/", "dir");
+        trie.put("http://a.oss/dir/sub/", "sub");
+        Assert.assertEquals("sub", trie.longestPrefixOf("http://a.oss/dir/sub/x.txt").getValue());
+        Assert.assertEquals("dir", trie.longestPrefixOf("http://a.oss/dir/su").getValue());
+        Assert.assertEquals("bucket", trie.longestPrefixOf("http://a.oss/d").getValue());
+        Assert.assertNull(trie.longestPrefixOf("http://a.os"));
+        Assert.assertNull(trie.longestPrefixOf("http://b.oss/dir/"));
+    }
+
+    @Test
+    public void testForEachPrefixOf() {
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        trie.put("a", 1);
+        trie.put("abc", 3);
+        trie.put("abcde", 5);
+        trie.put("abd", 0);
+        List<String> keys = new ArrayList<>();
+        trie.forEachPrefixOf("abcdef", e -> keys.add(e.getKey()));
+        Assert.assertEquals(Arrays.asList("a", "abc", "abcde"), keys);
+        keys.clear();
+        trie.forEachPrefixOf("ab", e -> keys.add(e.getKey()));
+        Assert.assertEquals(Collections.singletonList("a"), keys);
+    }
+
+    @Test
+    public void testRandomAgainstTreeMap() {
+        Random random = new Random(42);
+        RadixTrie<Integer> trie = new RadixTrie<>();
+        TreeMap<String, Integer> map = new TreeMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String key = randomKey(random);
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(key, map.remove(key), trie.remove(key));
+            } else {
+                Assert.assertEquals(key, map.put(key, i), trie.put(key, i));
+            }
+            Assert.assertEquals(map.size(), trie.size());
+            String s = randomKey(random);
+            Map.Entry<String, Integer> expected = null;
+            List<String> prefixes = new ArrayList<>();
+            for (int n = 0; n <= s.length(); n++) {
+                Integer value = map.get(s.substring(0, n));
+                if (value != null) {
+                    expected = new AbstractMap.SimpleEntry<>(s.substring(0, n), value);
+                    prefixes.add(s.substring(0, n));
+                }
+            }
+            Map.Entry<String, Integer> actual = trie.longestPrefixOf(s);
+            Assert.assertEquals(s, expected == null ? null : expected.getKey(), actual == null ? null : actual.getKey());
+            List<String> actualPrefixes = new ArrayList<>();
+            trie.forEachPrefixOf(s, e -> actualPrefixes.add(e.getKey()));
+            Assert.assertEquals(s, prefixes, actualPrefixes);
+        }
+        List<String> keys = new ArrayList<>();
+        trie.forEach((k, v) -> {
+            keys.add(k);
+            Assert.assertEquals(map.get(k), v);
+        });
+        Assert.assertEquals(new ArrayList<>(map.keySet()), keys);
+    }
+
+    private static String randomKey(Random random) {
+        char[] chars = new char[random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(3));
+        }
+        return new String(chars);
+    }
+}
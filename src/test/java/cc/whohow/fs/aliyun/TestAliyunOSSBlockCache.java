@@ -0,0 +1,155 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestAliyunOSSBlockCache {
+    private static final byte[] DATA = new byte[20];
+
+    static {
+        for (int i = 0; i < DATA.length; i++) {
+            DATA[i] = (byte) i;
+        }
+    }
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile RuntimeException error;
+
+    private final OSSClient client = new OSSClient("http://oss-cn-hangzhou.aliyuncs.com", "ak", "sk") {
+        @Override
+        public OSSObject getObject(GetObjectRequest request) {
+            requests.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (error != null) {
+                throw error;
+            }
+            long[] range = request.getRange();
+            OSSObject object = new OSSObject();
+            object.setObjectContent(new ByteArrayInputStream(DATA, (int) range[0], (int) (range[1] - range[0] + 1)));
+            return object;
+        }
+    };
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityLessThanBlockSize() {
+        new AliyunOSSBlockCache(3, 4);
+    }
+
+    @Test
+    public void testHitAndMiss() throws IOException {
+        AliyunOSSBlockCache cache = new AliyunOSSBlockCache(100, 4);
+        assertBlock(new byte[]{4, 5, 6, 7}, get(cache, "e", 1));
+        assertBlock(new byte[]{4, 5, 6, 7}, get(cache, "e", 1));
+        // 最后一块不足块大小
+        assertBlock(new byte[]{16, 17, 18, 19}, get(cache, "e", 4));
+        Assert.assertEquals(2, requests.get());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        // 不同ETag为不同的块
+        get(cache, "f", 1);
+        Assert.assertEquals(3, requests.get());
+        Assert.assertEquals(12, cache.getUsed());
+    }
+
+    @Test
+    public void testShortLastBlock() throws IOException {
+        AliyunOSSBlockCache cache = new AliyunOSSBlockCache(100, 8);
+        ByteBuffer block = cache.getBlock(client, "bk", "a", "e", 10, 1);
+        assertBlock(new byte[]{8, 9}, block);
+        Assert.assertEquals(2, cache.getUsed());
+    }
+
+    @Test
+    public void testLru() throws IOException {
+        AliyunOSSBlockCache cache = new AliyunOSSBlockCache(12, 4);
+        get(cache, "e", 0);
+        get(cache, "e", 1);
+        get(cache, "e", 2);
+        get(cache, "e", 0);
+        // 淘汰最久未访问的块1
+        get(cache, "e", 3);
+        Assert.assertEquals(3, cache.getBlockCount());
+        Assert.assertEquals(12, cache.getUsed());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(4, requests.get());
+        get(cache, "e", 0);
+        Assert.assertEquals(4, requests.get());
+        get(cache, "e", 1);
+        Assert.assertEquals(5, requests.get());
+        Assert.assertEquals(12, cache.getUsed());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getUsed());
+        Assert.assertEquals(0, cache.getBlockCount());
+    }
+
+    @Test
+    public void testConcurrentMiss() throws Exception {
+        AliyunOSSBlockCache cache = new AliyunOSSBlockCache(100, 4);
+        release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ByteBuffer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> get(cache, "e", 2)));
+            }
+            // 等待所有线程进入未命中
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getMissCount() < 8 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<ByteBuffer> future : futures) {
+                assertBlock(new byte[]{8, 9, 10, 11}, future.get(5, TimeUnit.SECONDS));
+            }
+            // 同一块的并发未命中只发起一次请求
+            Assert.assertEquals(1, requests.get());
+            Assert.assertEquals(1, cache.getBlockCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureNotCached() throws IOException {
+        AliyunOSSBlockCache cache = new AliyunOSSBlockCache(100, 4);
+        error = new IllegalStateException("fail");
+        try {
+            get(cache, "e", 0);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("fail", e.getMessage());
+        }
+        Assert.assertEquals(0, cache.getBlockCount());
+        error = null;
+        assertBlock(new byte[]{0, 1, 2, 3}, get(cache, "e", 0));
+        Assert.assertEquals(2, requests.get());
+    }
+
+    private ByteBuffer get(AliyunOSSBlockCache cache, String eTag, long index) throws IOException {
+        return cache.getBlock(client, "bk", "a", eTag, DATA.length, index);
+    }
+
+    private static void assertBlock(byte[] expected, ByteBuffer block) {
+        Assert.assertTrue(block.isReadOnly());
+        byte[] bytes = new byte[block.remaining()];
+        block.get(bytes);
+        Assert.assertArrayEquals(expected, bytes);
+    }
+}
@@ -0,0 +1,148 @@
+package cc.whohow.fs.aliyun;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestAliyunOSSDiskCache {
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("disk-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        writeData("a", 10);
+        writeData("b", 20);
+        writeData("c", 30);
+        writeData("orphan", 40);
+        // c的长度与索引不符
+        writeIndex(AliyunOSSDiskCache.MAGIC, AliyunOSSDiskCache.VERSION,
+                new Object[]{"bk", "x/a", "\"e1\"", 10L, "a"},
+                new Object[]{"bk", "x/b", "\"e2\"", 20L, "b"},
+                new Object[]{"bk", "x/c", "\"e3\"", 31L, "c"},
+                new Object[]{"bk", "x/d", "\"e4\"", 40L, "d"});
+        AliyunOSSDiskCache cache = newCache();
+        Assert.assertEquals(2, cache.getFileCount());
+        Assert.assertEquals(30, cache.getUsed());
+        // 索引外及无效条目的文件被删除
+        Assert.assertEquals(Arrays.asList("a" + AliyunOSSDiskCache.SUFFIX, "b" + AliyunOSSDiskCache.SUFFIX,
+                AliyunOSSDiskCache.INDEX), list());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        writeData("a", 10);
+        writeData("b", 20);
+        writeIndex(AliyunOSSDiskCache.MAGIC, AliyunOSSDiskCache.VERSION,
+                new Object[]{"bk", "x/a", "\"e1\"", 10L, "a"},
+                new Object[]{"bk", "中文/b", "\"e2\"", 20L, "b"});
+        AliyunOSSDiskCache cache = newCache();
+        cache.invalidate("bk", "x/a");
+        cache.save();
+        cache.close();
+
+        AliyunOSSDiskCache reloaded = newCache();
+        Assert.assertEquals(1, reloaded.getFileCount());
+        Assert.assertEquals(20, reloaded.getUsed());
+        Assert.assertEquals(Arrays.asList("b" + AliyunOSSDiskCache.SUFFIX, AliyunOSSDiskCache.INDEX), list());
+        reloaded.save();
+        Assert.assertEquals(1, newCache().getFileCount());
+    }
+
+    @Test
+    public void testUnknownVersion() throws IOException {
+        writeData("a", 10);
+        writeIndex(AliyunOSSDiskCache.MAGIC, AliyunOSSDiskCache.VERSION + 1,
+                new Object[]{"bk", "x/a", "\"e1\"", 10L, "a"});
+        assertEmpty(newCache());
+    }
+
+    @Test
+    public void testCorruptIndex() throws IOException {
+        writeData("a", 10);
+        Files.write(new File(directory, AliyunOSSDiskCache.INDEX).toPath(), "not an index".getBytes());
+        assertEmpty(newCache());
+    }
+
+    @Test
+    public void testTruncatedIndex() throws IOException {
+        writeData("a", 10);
+        writeData("b", 20);
+        writeIndex(AliyunOSSDiskCache.MAGIC, AliyunOSSDiskCache.VERSION,
+                new Object[]{"bk", "x/a", "\"e1\"", 10L, "a"},
+                new Object[]{"bk", "x/b", "\"e2\"", 20L, "b"});
+        File index = new File(directory, AliyunOSSDiskCache.INDEX);
+        byte[] bytes = Files.readAllBytes(index.toPath());
+        Files.write(index.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+        assertEmpty(newCache());
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        writeData("a", 10);
+        Files.write(new File(directory, AliyunOSSDiskCache.INDEX).toPath(), new byte[0]);
+        assertEmpty(newCache());
+    }
+
+    private void assertEmpty(AliyunOSSDiskCache cache) throws IOException {
+        Assert.assertEquals(0, cache.getFileCount());
+        Assert.assertEquals(0, cache.getUsed());
+        // 缓存文件全部删除，丢弃的索引在下次保存时覆盖
+        Assert.assertEquals(Arrays.asList(AliyunOSSDiskCache.INDEX), list());
+        cache.save();
+        Assert.assertEquals(0, newCache().getFileCount());
+    }
+
+    private AliyunOSSDiskCache newCache() throws IOException {
+        return new AliyunOSSDiskCache(directory, 1024, 60000, 1024, 1, Runnable::run, null);
+    }
+
+    private void writeData(String name, int size) throws IOException {
+        Files.write(new File(directory, name + AliyunOSSDiskCache.SUFFIX).toPath(), new byte[size]);
+    }
+
+    /**
+     * 按索引格式写入：bucketName、objectKey、eTag、size、文件名
+     */
+    private void writeIndex(int magic, int version, Object[]... entries) throws IOException {
+        try (DataOutputStream stream = new DataOutputStream(
+                new FileOutputStream(new File(directory, AliyunOSSDiskCache.INDEX)))) {
+            stream.writeInt(magic);
+            stream.writeInt(version);
+            stream.writeInt(entries.length);
+            for (Object[] entry : entries) {
+                stream.writeUTF((String) entry[0]);
+                stream.writeUTF((String) entry[1]);
+                stream.writeUTF((String) entry[2]);
+                stream.writeLong((Long) entry[3]);
+                stream.writeUTF(entry[4] + AliyunOSSDiskCache.SUFFIX);
+            }
+        }
+    }
+
+    private List<String> list() {
+        String[] names = directory.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
@@ -0,0 +1,37 @@
+package cc.whohow.fs.aliyun;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAliyunOSSFileUploader {
+    private static final long MB = 1024 * 1024;
+    private static final long GB = 1024 * MB;
+
+    @Test
+    public void testMinPartSize() {
+        Assert.assertEquals(8 * MB, AliyunOSSFileUploader.getPartSize(0));
+        Assert.assertEquals(8 * MB, AliyunOSSFileUploader.getPartSize(1));
+        Assert.assertEquals(8 * MB, AliyunOSSFileUploader.getPartSize(8 * MB));
+        Assert.assertEquals(8 * MB, AliyunOSSFileUploader.getPartSize(8000 * MB));
+    }
+
+    @Test
+    public void testMaxPartCount() {
+        for (long length : new long[]{8000 * MB + 1, 10 * GB, 10 * GB + 1, 100 * GB - 1, 1024 * GB + 12345}) {
+            long partSize = AliyunOSSFileUploader.getPartSize(length);
+            // 不小于8MB，按1MB对齐，分片数不超过1000
+            Assert.assertTrue(partSize >= 8 * MB);
+            Assert.assertEquals(0, partSize % MB);
+            Assert.assertTrue((length + partSize - 1) / partSize <= 1000);
+            // 取满足条件的最小分片
+            Assert.assertTrue(partSize == 8 * MB || (length + partSize - MB - 1) / (partSize - MB) > 1000);
+        }
+    }
+
+    @Test
+    public void testAlignment() {
+        Assert.assertEquals(9 * MB, AliyunOSSFileUploader.getPartSize(8000 * MB + 1));
+        Assert.assertEquals(11 * MB, AliyunOSSFileUploader.getPartSize(10 * GB));
+        Assert.assertEquals(1049 * MB, AliyunOSSFileUploader.getPartSize(1024 * GB));
+    }
+}
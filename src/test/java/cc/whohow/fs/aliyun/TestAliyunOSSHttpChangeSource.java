@@ -0,0 +1,143 @@
+package cc.whohow.fs.aliyun;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+
+public class TestAliyunOSSHttpChangeSource {
+    private static final String EVENTS = "{\"events\":[" +
+            "{\"eventName\":\"ObjectCreated:PutObject\",\"oss\":{\"bucket\":{\"arn\":\"acs:oss:cn-hangzhou:1:bk\",\"name\":\"bk\"},\"object\":{\"eTag\":\"e\",\"key\":\"dir%2Fa%20b.txt\",\"size\":1}}}," +
+            "{\"eventName\":\"ObjectRemoved:DeleteObject\",\"oss\":{\"bucket\":{\"name\":\"bk\"},\"object\":{\"key\":\"dir/c\"}}}," +
+            "{\"eventName\":\"ObjectDownloaded:GetObject\",\"oss\":{\"bucket\":{\"name\":\"bk\"},\"object\":{\"key\":\"dir/d\"}}}]}";
+
+    private AliyunOSSHttpChangeSource source;
+    private final List<AliyunOSSChange> changes = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        source = new AliyunOSSHttpChangeSource(new InetSocketAddress("127.0.0.1", 0), "/oss", "s3cr&t");
+        source.start(changes::addAll);
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+    }
+
+    @Test
+    public void testParseJson() {
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", AliyunOSSHttpChangeSource.parse(EVENTS));
+    }
+
+    @Test
+    public void testParseXmlBase64() {
+        // MNS XML格式，消息体Base64编码
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Notification><TopicName>t</TopicName><Message>" +
+                Base64.getEncoder().encodeToString(EVENTS.getBytes(StandardCharsets.UTF_8)) + "</Message></Notification>";
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", AliyunOSSHttpChangeSource.parse(xml));
+    }
+
+    @Test
+    public void testParseXmlEscaped() {
+        String xml = "<Notification><Message>" + EVENTS.replace("&", "&amp;").replace("\"", "&quot;") + "</Message></Notification>";
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", AliyunOSSHttpChangeSource.parse(xml));
+    }
+
+    @Test
+    public void testParseJsonMessage() {
+        // MNS JSON格式，消息体为转义的JSON字符串或Base64
+        String escaped = "{\"TopicName\":\"t\",\"Message\":\"" + EVENTS.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", AliyunOSSHttpChangeSource.parse(escaped));
+        String base64 = "{\"TopicName\":\"t\",\"Message\":\"" +
+                Base64.getEncoder().encodeToString(EVENTS.getBytes(StandardCharsets.UTF_8)) + "\"}";
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", AliyunOSSHttpChangeSource.parse(base64));
+    }
+
+    @Test
+    public void testParseEscapedKey() {
+        Assert.assertEquals("a中\"b\\c", parseKey("a\\u4e2d\\\"b\\\\c"));
+        Assert.assertEquals("中文/1.txt", parseKey("%E4%B8%AD%E6%96%87/1.txt"));
+        // 不完整的转义保留原文
+        Assert.assertEquals("x\\u12", parseKey("x\\u12"));
+        Assert.assertEquals("x\\u123", parseKey("x\\u123"));
+        Assert.assertEquals("x\\u12g4", parseKey("x\\u12g4"));
+        Assert.assertEquals("xሴ", parseKey("x\\u1234"));
+        Assert.assertEquals("100%", parseKey("100%"));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        Assert.assertTrue(AliyunOSSHttpChangeSource.parse("").isEmpty());
+        Assert.assertTrue(AliyunOSSHttpChangeSource.parse("not base64!").isEmpty());
+        Assert.assertTrue(AliyunOSSHttpChangeSource.parse("{\"events\":[]}").isEmpty());
+    }
+
+    @Test
+    public void testPost() throws IOException {
+        Assert.assertEquals(204, post("/oss?token=s3cr%26t", EVENTS));
+        assertChanges("[ENTRY_CREATE bk/dir/a b.txt, ENTRY_DELETE bk/dir/c]", changes);
+        Assert.assertEquals(ENTRY_CREATE, changes.get(0).getKind());
+        Assert.assertEquals(ENTRY_DELETE, changes.get(1).getKind());
+    }
+
+    @Test
+    public void testUnauthorized() throws IOException {
+        Assert.assertEquals(403, post("/oss", EVENTS));
+        Assert.assertEquals(403, post("/oss?token=s3cr", EVENTS));
+        Assert.assertEquals(403, post("/oss?token=s3cr&t", EVENTS));
+        Assert.assertEquals(403, post("/oss?t=s3cr%26t", EVENTS));
+        Assert.assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testMethodNotAllowed() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + source.getAddress().getPort() + "/oss?token=s3cr%26t").openConnection();
+        try {
+            Assert.assertEquals(405, connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private int post(String pathAndQuery, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + source.getAddress().getPort() + pathAndQuery).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream stream = connection.getOutputStream()) {
+                stream.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String parseKey(String key) {
+        List<AliyunOSSChange> list = AliyunOSSHttpChangeSource.parse(
+                "{\"events\":[{\"eventName\":\"ObjectCreated:PutObject\",\"oss\":{\"bucket\":{\"name\":\"bk\"},\"object\":{\"key\":\"" + key + "\"}}}]}");
+        Assert.assertEquals(1, list.size());
+        return list.get(0).getObjectKey();
+    }
+
+    private static void assertChanges(String expected, List<AliyunOSSChange> actual) {
+        Assert.assertEquals(expected, new ArrayList<>(actual).toString());
+    }
+}
@@ -0,0 +1,169 @@
+package cc.whohow.fs.aliyun;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class TestAliyunOSSWatchCluster {
+    private static final long LEASE_TIMEOUT = 200;
+
+    private File directory;
+    private AliyunOSSWatchLogStore store;
+    private final List<WatchEvent.Kind<Path>> kinds = new ArrayList<>();
+    private final List<String> uris = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("watch-cluster").toFile();
+        store = new AliyunOSSLocalWatchLogStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testElection() {
+        AliyunOSSWatchCluster a = newCluster("a");
+        AliyunOSSWatchCluster b = newCluster("b");
+        a.run();
+        b.run();
+        Assert.assertTrue(a.isLeader());
+        Assert.assertFalse(b.isLeader());
+        Assert.assertEquals(0, a.getEpoch());
+        Assert.assertEquals(0, b.getEpoch());
+        // 非leader不能发布
+        Assert.assertFalse(b.publish(Collections.singletonList(ENTRY_CREATE), Collections.singletonList("oss://b/x")));
+    }
+
+    @Test
+    public void testTail() {
+        AliyunOSSWatchCluster a = newCluster("a");
+        AliyunOSSWatchCluster b = newCluster("b");
+        a.run();
+        b.run();
+        Assert.assertTrue(a.publish(Arrays.asList(ENTRY_CREATE, ENTRY_DELETE),
+                Arrays.asList("oss://b/1", "oss://b/2\t%\n")));
+        Assert.assertTrue(a.publish(Collections.singletonList(ENTRY_MODIFY), Collections.singletonList("oss://b/3")));
+        b.run();
+        assertEvents(ENTRY_CREATE, "oss://b/1", ENTRY_DELETE, "oss://b/2\t%\n", ENTRY_MODIFY, "oss://b/3");
+
+        // 已读取的事件不重复分发
+        kinds.clear();
+        uris.clear();
+        b.run();
+        assertEvents();
+    }
+
+    @Test
+    public void testFailover() throws InterruptedException {
+        AliyunOSSWatchCluster a = newCluster("a");
+        AliyunOSSWatchCluster b = newCluster("b");
+        a.run();
+        b.run();
+        Assert.assertTrue(a.publish(Collections.singletonList(ENTRY_CREATE), Collections.singletonList("oss://b/1")));
+
+        // leader停止续约，租约超时后follower读完旧日志并抢占下一个epoch
+        Thread.sleep(LEASE_TIMEOUT * 2);
+        b.run();
+        Assert.assertTrue(b.isLeader());
+        Assert.assertEquals(1, b.getEpoch());
+        assertEvents(ENTRY_CREATE, "oss://b/1");
+
+        // 旧leader租约已超时，不能继续发布
+        Assert.assertFalse(a.publish(Collections.singletonList(ENTRY_CREATE), Collections.singletonList("oss://b/2")));
+        Assert.assertFalse(a.isLeader());
+
+        // 旧leader成为follower，读取新epoch的日志
+        a.run();
+        Assert.assertFalse(a.isLeader());
+        Assert.assertEquals(1, a.getEpoch());
+        kinds.clear();
+        uris.clear();
+        Assert.assertTrue(b.publish(Collections.singletonList(ENTRY_MODIFY), Collections.singletonList("oss://b/3")));
+        a.run();
+        assertEvents(ENTRY_MODIFY, "oss://b/3");
+    }
+
+    @Test
+    public void testStaleLeaderDemoted() throws InterruptedException {
+        AliyunOSSWatchCluster a = newCluster("a");
+        AliyunOSSWatchCluster b = newCluster("b");
+        a.run();
+        b.run();
+        Thread.sleep(LEASE_TIMEOUT * 2);
+        b.run();
+        Assert.assertTrue(b.isLeader());
+        // 旧leader续约时发现更新的租约，放弃leader
+        a.run();
+        Assert.assertFalse(a.isLeader());
+    }
+
+    @Test
+    public void testCompact() throws InterruptedException, IOException {
+        AliyunOSSWatchCluster a = newCluster("a");
+        AliyunOSSWatchCluster b = newCluster("b");
+        a.run();
+        b.run();
+        Assert.assertTrue(a.publish(Collections.singletonList(ENTRY_CREATE), Collections.singletonList("oss://b/1")));
+        Thread.sleep(LEASE_TIMEOUT * 2);
+        b.run();
+        Assert.assertTrue(b.isLeader());
+        Assert.assertTrue(b.publish(Collections.singletonList(ENTRY_CREATE), Collections.singletonList("oss://b/2")));
+        Assert.assertEquals(Arrays.asList("lease.0", "lease.1"), sorted(store.list("lease.")));
+        Assert.assertEquals(Arrays.asList("log.0", "log.1"), sorted(store.list("log.")));
+
+        // 持有租约超过2个租约超时时间后删除旧epoch的租约及日志
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LEASE_TIMEOUT * 4);
+        while (System.nanoTime() < deadline) {
+            b.run();
+            Thread.sleep(LEASE_TIMEOUT / 10);
+        }
+        Assert.assertTrue(b.isLeader());
+        Assert.assertEquals(Collections.singletonList("lease.1"), store.list("lease."));
+        Assert.assertEquals(Collections.singletonList("log.1"), store.list("log."));
+    }
+
+    private AliyunOSSWatchCluster newCluster(String nodeId) {
+        return new AliyunOSSWatchCluster((k, u) -> {
+            kinds.addAll(k);
+            uris.addAll(u);
+        }, store, nodeId, LEASE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void assertEvents(Object... events) {
+        List<Object> actual = new ArrayList<>();
+        for (int i = 0; i < kinds.size(); i++) {
+            actual.add(kinds.get(i));
+            actual.add(uris.get(i));
+        }
+        Assert.assertEquals(Arrays.asList(events), actual);
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<>(list);
+        Collections.sort(copy);
+        return copy;
+    }
+}
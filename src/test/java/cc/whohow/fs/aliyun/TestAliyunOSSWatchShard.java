@@ -0,0 +1,53 @@
+package cc.whohow.fs.aliyun;
+
+import cc.whohow.fs.HashedWheelTimer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class TestAliyunOSSWatchShard {
+    @Test
+    public void testLagBetweenPolls() throws Exception {
+        // 执行线程池先阻塞100ms，模拟轮询线程繁忙
+        Executor executor = task -> new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            task.run();
+        }).start();
+        AliyunOSSWatchShard shard = new AliyunOSSWatchShard(null, null, null, 1000);
+        Assert.assertEquals(-1, shard.getLag());
+
+        CountDownLatch polled = new CountDownLatch(1);
+        try (HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, executor)) {
+            // 与AliyunOSSWatchTask.poll相同：先记录延迟，再调度下次轮询
+            shard.timeout = timer.schedule(() -> {
+                shard.recordLag();
+                shard.timeout = timer.schedule(() -> {
+                }, 1, TimeUnit.HOURS);
+                polled.countDown();
+            }, 0, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(polled.await(5, TimeUnit.SECONDS));
+
+            // 两次轮询之间仍返回上次轮询的延迟
+            Assert.assertEquals(-1, shard.timeout.getLag());
+            Assert.assertTrue(shard.getLag() >= 100);
+        }
+    }
+
+    @Test
+    public void testIsAfter() {
+        AliyunOSSWatchShard shard = new AliyunOSSWatchShard("a/b", "a/d", null, 1000);
+        Assert.assertFalse(shard.isAfter("a/c".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(shard.isAfter("a/d".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(shard.isAfter("a/d0".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(shard.isAfter("a/中".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(new AliyunOSSWatchShard("a/b", null, null, 1000).isAfter("z".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,139 @@
+package cc.whohow.fs.aliyun;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestAliyunOSSWatchSnapshot {
+    @Test
+    public void testFrontCodingRoundTrip() {
+        List<String> keys = sorted(Arrays.asList(
+                "", "a", "a/", "a/b", "a/b/c.txt", "a/b/d.txt", "a/bc", "b", "b/中文.txt", "b/z.txt"));
+        AliyunOSSWatchSnapshot snapshot = build(keys);
+        Assert.assertEquals(keys.size(), snapshot.size());
+        assertContent(keys, snapshot);
+    }
+
+    @Test
+    public void testMultiByteVarInts() {
+        // 共享前缀长度 >= 128（2字节变长整数），后缀长度 >= 16384（3字节变长整数）
+        String prefix = repeat('p', 200);
+        List<String> keys = sorted(Arrays.asList(
+                prefix + "a", prefix + "b" + repeat('x', 20000), prefix + "b" + repeat('x', 20000) + "y", prefix + "c"));
+        assertContent(keys, build(keys));
+    }
+
+    @Test
+    public void testUnsignedCompare() {
+        byte[] ascii = "a/z".getBytes(StandardCharsets.UTF_8);
+        byte[] chinese = "a/中".getBytes(StandardCharsets.UTF_8);
+        // UTF-8字节按无符号比较，与OSS字典序一致
+        Assert.assertTrue(AliyunOSSWatchSnapshot.compare(ascii, ascii.length, chinese, chinese.length) < 0);
+        Assert.assertTrue(AliyunOSSWatchSnapshot.compare(chinese, chinese.length, ascii, ascii.length) > 0);
+        Assert.assertTrue(AliyunOSSWatchSnapshot.compare(ascii, 2, ascii, ascii.length) < 0);
+        Assert.assertEquals(0, AliyunOSSWatchSnapshot.compare(ascii, ascii.length, ascii.clone(), ascii.length));
+
+        AliyunOSSWatchSnapshot snapshot = build(Arrays.asList("a/z", "a/中"));
+        AliyunOSSWatchSnapshot.Cursor cursor = snapshot.cursor();
+        Assert.assertTrue(cursor.next());
+        Assert.assertTrue(cursor.compareTo(chinese) < 0);
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(0, cursor.compareTo(chinese));
+        Assert.assertTrue(cursor.compareTo(ascii) > 0);
+        Assert.assertFalse(cursor.next());
+        Assert.assertFalse(cursor.isValid());
+    }
+
+    @Test
+    public void testBuilderFromCursor() {
+        List<String> keys = sorted(Arrays.asList("x/1", "x/2", "x/10", "y"));
+        AliyunOSSWatchSnapshot snapshot = build(keys);
+        AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder(snapshot);
+        AliyunOSSWatchSnapshot.Cursor cursor = snapshot.cursor();
+        while (cursor.next()) {
+            builder.add(cursor);
+        }
+        assertContent(keys, builder.build());
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("dir/" + i + ".txt");
+        }
+        keys = sorted(keys);
+        AliyunOSSWatchSnapshot snapshot = build(keys);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream stream = new DataOutputStream(buffer)) {
+            snapshot.writeTo(stream);
+        }
+        AliyunOSSWatchSnapshot read = AliyunOSSWatchSnapshot.readFrom(
+                new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+        assertContent(keys, read);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalid() throws IOException {
+        AliyunOSSWatchSnapshot.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+
+    @Test
+    public void testEmpty() {
+        AliyunOSSWatchSnapshot snapshot = new AliyunOSSWatchSnapshot.Builder().build();
+        Assert.assertEquals(0, snapshot.size());
+        Assert.assertFalse(snapshot.cursor().next());
+    }
+
+    @Test
+    public void testFingerprint() {
+        long fingerprint = AliyunOSSWatchSnapshot.fingerprint("\"5B3C1A2E053D763E1B002CC607C5A0FE\"", 100);
+        Assert.assertEquals(fingerprint, AliyunOSSWatchSnapshot.fingerprint("\"5B3C1A2E053D763E1B002CC607C5A0FE\"", 100));
+        Assert.assertNotEquals(fingerprint, AliyunOSSWatchSnapshot.fingerprint("\"5B3C1A2E053D763E1B002CC607C5A0FF\"", 100));
+        Assert.assertNotEquals(fingerprint, AliyunOSSWatchSnapshot.fingerprint("\"5B3C1A2E053D763E1B002CC607C5A0FE\"", 101));
+    }
+
+    private static AliyunOSSWatchSnapshot build(List<String> keys) {
+        AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder();
+        for (int i = 0; i < keys.size(); i++) {
+            builder.add(keys.get(i).getBytes(StandardCharsets.UTF_8), i);
+        }
+        return builder.build();
+    }
+
+    private static void assertContent(List<String> keys, AliyunOSSWatchSnapshot snapshot) {
+        Assert.assertEquals(keys.size(), snapshot.size());
+        AliyunOSSWatchSnapshot.Cursor cursor = snapshot.cursor();
+        for (int i = 0; i < keys.size(); i++) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(keys.get(i), cursor.key());
+            Assert.assertEquals(i, cursor.fingerprint());
+        }
+        Assert.assertFalse(cursor.next());
+    }
+
+    /**
+     * 按UTF-8字节序排序
+     */
+    private static List<String> sorted(List<String> keys) {
+        List<String> list = new ArrayList<>(keys);
+        Collections.sort(list, (a, b) -> {
+            byte[] x = a.getBytes(StandardCharsets.UTF_8);
+            byte[] y = b.getBytes(StandardCharsets.UTF_8);
+            return AliyunOSSWatchSnapshot.compare(x, x.length, y, y.length);
+        });
+        return list;
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
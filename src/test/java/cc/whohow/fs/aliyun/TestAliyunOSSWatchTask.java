@@ -0,0 +1,143 @@
+package cc.whohow.fs.aliyun;
+
+import com.aliyun.oss.model.OSSObjectSummary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class TestAliyunOSSWatchTask {
+    private final List<WatchEvent.Kind<Path>> kinds = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    @Test
+    public void testFirstPollHasNoEvents() {
+        AliyunOSSWatchSnapshot snapshot = merge(null, "r/", "r/", null,
+                object("r/a", "1"), object("r/b", "1"));
+        Assert.assertEquals(2, snapshot.size());
+        assertEvents();
+    }
+
+    @Test
+    public void testCreateModifyDelete() {
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/a", "1"), object("r/b", "1"), object("r/c", "1"), object("r/d", "1"));
+        AliyunOSSWatchSnapshot curr = merge(prev, "r/", "r/", null,
+                object("r/b", "1"), object("r/c", "2"), object("r/e", "1"));
+        assertEvents(ENTRY_DELETE, "r/a", ENTRY_MODIFY, "r/c", ENTRY_DELETE, "r/d", ENTRY_CREATE, "r/e");
+        Assert.assertEquals(3, curr.size());
+
+        // 再次比较无变化
+        kinds.clear();
+        keys.clear();
+        merge(curr, "r/", "r/", null, object("r/b", "1"), object("r/c", "2"), object("r/e", "1"));
+        assertEvents();
+    }
+
+    @Test
+    public void testSizeChangeIsModify() {
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/a", "1", 1));
+        merge(prev, "r/", "r/", null, object("r/a", "1", 2));
+        assertEvents(ENTRY_MODIFY, "r/a");
+    }
+
+    @Test
+    public void testDeleteAll() {
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/a", "1"), object("r/b", "1"));
+        AliyunOSSWatchSnapshot curr = merge(prev, "r/", "r/", null);
+        assertEvents(ENTRY_DELETE, "r/a", ENTRY_DELETE, "r/b");
+        Assert.assertEquals(0, curr.size());
+    }
+
+    @Test
+    public void testShardUpperBound() {
+        // 分片(r/b, r/d]，遍历从r/b之后开始，r/d包含在分片内，r/e超出分片不读取
+        AliyunOSSWatchShard shard = new AliyunOSSWatchShard("r/b", "r/d", null, 1000);
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/c", "1"), object("r/d", "1"));
+        AliyunOSSWatchSnapshot curr = merge(prev, "r/", "r/", shard,
+                object("r/c", "1"), object("r/d", "2"), object("r/e", "1"), object("r/f", "1"));
+        assertEvents(ENTRY_MODIFY, "r/d");
+        Assert.assertEquals(2, curr.size());
+    }
+
+    @Test
+    public void testShardEndsOfRange() {
+        AliyunOSSWatchShard shard = new AliyunOSSWatchShard("r/b", "r/d", null, 1000);
+        // 分片末尾对象被删除，下一个对象已超出分片
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/c", "1"), object("r/d", "1"));
+        merge(prev, "r/", "r/", shard, object("r/c", "1"), object("r/e", "1"));
+        assertEvents(ENTRY_DELETE, "r/d");
+
+        // 分片开头新增对象，分片末尾新增对象
+        kinds.clear();
+        keys.clear();
+        prev = snapshot(object("r/c", "1"));
+        merge(prev, "r/", "r/", shard, object("r/b0", "1"), object("r/c", "1"), object("r/d", "1"));
+        assertEvents(ENTRY_CREATE, "r/b0", ENTRY_CREATE, "r/d");
+    }
+
+    @Test
+    public void testUnsignedKeyOrder() {
+        // 中文Key的UTF-8字节大于ASCII，按OSS字典序排在r/z之后
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/z", "1"), object("r/中", "1"));
+        merge(prev, "r/", "r/", null, object("r/z", "1"), object("r/中", "2"));
+        assertEvents(ENTRY_MODIFY, "r/中");
+    }
+
+    @Test
+    public void testRootChange() {
+        // 监听根目录从r/a/扩大到r/：原范围外的对象不产生CREATE事件
+        AliyunOSSWatchSnapshot prev = snapshot(object("r/a/1", "1"), object("r/a/2", "1"));
+        merge(prev, "r/a/", "r/", null, object("r/a/1", "1"), object("r/a/3", "1"), object("r/b", "1"));
+        assertEvents(ENTRY_DELETE, "r/a/2", ENTRY_CREATE, "r/a/3");
+
+        // 监听根目录从r/缩小到r/a/：新范围外的对象不产生DELETE事件
+        kinds.clear();
+        keys.clear();
+        prev = snapshot(object("r/a/1", "1"), object("r/b", "1"));
+        merge(prev, "r/", "r/a/", null, object("r/a/1", "1"));
+        assertEvents();
+    }
+
+    private AliyunOSSWatchSnapshot merge(AliyunOSSWatchSnapshot prev, String prevRoot, String currRoot,
+                                         AliyunOSSWatchShard shard, OSSObjectSummary... objects) {
+        return AliyunOSSWatchTask.merge(Arrays.asList(objects).iterator(), prevRoot, currRoot, prev, shard, kinds, keys);
+    }
+
+    private void assertEvents(Object... events) {
+        List<Object> actual = new ArrayList<>();
+        for (int i = 0; i < kinds.size(); i++) {
+            actual.add(kinds.get(i));
+            actual.add(keys.get(i));
+        }
+        Assert.assertEquals(Arrays.asList(events), actual);
+    }
+
+    private static AliyunOSSWatchSnapshot snapshot(OSSObjectSummary... objects) {
+        AliyunOSSWatchSnapshot.Builder builder = new AliyunOSSWatchSnapshot.Builder();
+        for (OSSObjectSummary object : objects) {
+            builder.add(object.getKey().getBytes(StandardCharsets.UTF_8),
+                    AliyunOSSWatchSnapshot.fingerprint(object.getETag(), object.getSize()));
+        }
+        return builder.build();
+    }
+
+    private static OSSObjectSummary object(String key, String eTag) {
+        return object(key, eTag, 1);
+    }
+
+    private static OSSObjectSummary object(String key, String eTag, long size) {
+        OSSObjectSummary object = new OSSObjectSummary();
+        object.setKey(key);
+        object.setETag(eTag);
+        object.setSize(size);
+        return object;
+    }
+}